@@ -0,0 +1,40 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.controller.DatasetProfile;
+import study.querydsl.controller.MemberBulkLoader;
+
+/**
+ * 벤치마크용 임베디드 H2 + 스프링 컨텍스트
+ * teamA ~ teamJ 10개 팀, 회원 나이는 0~99 (분포는 DatasetProfile 로 바꿀 수 있다)
+ */
+public final class BenchmarkDatabase {
+
+    public static final int TEAM_COUNT = 10;
+
+    private BenchmarkDatabase() {
+    }
+
+    public static ConfigurableApplicationContext start(DatasetProfile profile) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.profiles.active=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark" + memberCount + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        // 반복 호출이 결과/카운트 캐시에 맞으면 쿼리 비용을 잴 수 없다
+                        // (카운트 캐시가 켜져 있으면 searchPageComplex 만 캐시된 count 를 써서 searchPageSimple 과 비교가 안 된다)
+                        "--querydsl.result-cache.enabled=false",
+                        "--querydsl.count-cache.enabled=false"
+                );
+        context.getBean(MemberBulkLoader.class).load(profile);
+        return context;
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.controller.support.MemberPageHttpMessageConverter;
+import study.querydsl.dto.MemberPage;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 페이지 응답 직렬화 비교 (PageImpl + Jackson 빈 직렬화 vs MemberPage + JsonGenerator 직접 쓰기)
+ * DB 없이 직렬화만 잰다. 응답 크기는 setup 로그로 확인
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    // jmh 소스셋에는 lombok 이 없다
+    private static final Logger log = LoggerFactory.getLogger(PageSerializationBenchmark.class);
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private Page<MemberTeamDTO> page;
+    private MemberPage memberPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<MemberTeamDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new MemberTeamDTO((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(2, pageSize), 100_000);
+        memberPage = MemberPage.of(page);
+
+        log.info("pageSize={} PageImpl {} bytes, MemberPage {} bytes", pageSize, pageImpl().length, memberPage().length);
+    }
+
+    @Benchmark
+    public byte[] pageImpl() throws IOException {
+        buffer.reset();
+        objectMapper.writeValue(buffer, page);
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] memberPage() throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            MemberPageHttpMessageConverter.write(memberPage, generator);
+        }
+        return buffer.toByteArray();
+    }
+}
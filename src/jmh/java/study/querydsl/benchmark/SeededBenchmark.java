@@ -0,0 +1,48 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.controller.DatasetProfile;
+
+/**
+ * 데이터 건수별로 컨텍스트를 새로 띄우고 시드 데이터를 넣은 뒤 벤치마크한다
+ * 운영 분포 재현: -p teamSkew=1.0 -p usernameSkew=1.1 -p ageClusters=3 (기본은 고른 분포)
+ */
+@State(Scope.Benchmark)
+public abstract class SeededBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int memberCount;
+
+    @Param({"0"})
+    public double teamSkew;
+
+    @Param({"0"})
+    public double usernameSkew;
+
+    @Param({"0"})
+    public int ageClusters;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkDatabase.start(DatasetProfile.uniform(memberCount, BenchmarkDatabase.TEAM_COUNT)
+                .withTeamSkew(teamSkew)
+                .withUsernameSkew(usernameSkew)
+                .withAgeClusters(ageClusters));
+        init(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    protected abstract void init(ConfigurableApplicationContext context);
+}
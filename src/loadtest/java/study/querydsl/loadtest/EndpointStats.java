@@ -0,0 +1,61 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트 하나의 지연 시간 분포 (마이크로초, 최대 1분, 유효숫자 3자리)와 오류 수
+ * 여러 워커가 동시에 기록하므로 ConcurrentHistogram 사용
+ */
+public class EndpointStats {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latency = new ConcurrentHistogram(1, HIGHEST_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long elapsedNanos, boolean error) {
+        latency.recordValue(Math.min(HIGHEST_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos))));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 워밍업 구간 기록을 버린다
+     */
+    public void reset() {
+        latency.reset();
+        errors.reset();
+    }
+
+    public long requests() {
+        return latency.getTotalCount();
+    }
+
+    public Map<String, Object> report(double elapsedSeconds) {
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("mean", millis(latency.getMean()));
+        latencyMillis.put("p50", millis(latency.getValueAtPercentile(50)));
+        latencyMillis.put("p90", millis(latency.getValueAtPercentile(90)));
+        latencyMillis.put("p99", millis(latency.getValueAtPercentile(99)));
+        latencyMillis.put("p999", millis(latency.getValueAtPercentile(99.9)));
+        latencyMillis.put("max", millis(latency.getMaxValue()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requests());
+        report.put("errors", errors.sum());
+        report.put("throughputPerSecond", Math.round(requests() / elapsedSeconds * 10) / 10.0);
+        report.put("latencyMillis", latencyMillis);
+        return report;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
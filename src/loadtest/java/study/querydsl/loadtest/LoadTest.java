@@ -0,0 +1,161 @@
+package study.querydsl.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.controller.MemberBulkLoader;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔드포인트 부하 테스트
+ *
+ * 1. 인메모리 H2 로 애플리케이션을 띄우고 (랜덤 포트) MemberBulkLoader 로 데이터를 채운다
+ * 2. concurrency 개의 워커가 응답을 받자마자 다음 요청을 보낸다 (closed loop)
+ * 3. 워밍업 구간 기록은 버리고, 측정 구간의 엔드포인트별 처리량/지연 백분위를 JSON 으로 남긴다
+ *
+ * 결과/카운트 캐시는 끄고 돌린다 (LoadTestConfig.appArgs). 캐시를 켠 결과는 별도 시나리오로 비교
+ *
+ * 운영 분포 재현: -PloadTest.teamSkew=1.0 -PloadTest.usernameSkew=1.1 -PloadTest.ageClusters=3
+ * ./gradlew loadTest -PloadTest.concurrency=64 -PloadTest.mix=v2:1,v3:3 -PloadTest.app.querydsl.bulkhead.enabled=true
+ */
+public class LoadTest {
+
+    // loadtest 소스셋에는 롬복을 붙이지 않았다
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        try (ConfigurableApplicationContext context = startApplication(config)) {
+            context.getBean(MemberBulkLoader.class).load(config.dataset());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Map<String, Object> report = new LoadTest(config, new TrafficMix("http://localhost:" + port, config)).run();
+            writeReport(config, report);
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                // local 프로필(InitMember)의 샘플 데이터가 데이터셋에 섞이지 않도록
+                "--spring.profiles.active=loadtest",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.SQL=warn"));
+        config.appArgs().forEach((key, value) -> args.add("--" + key + "=" + value));
+        return SpringApplication.run(QuerydslApplication.class, args.toArray(String[]::new));
+    }
+
+    private final LoadTestConfig config;
+    private final TrafficMix mix;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+
+    private volatile boolean running = true;
+
+    LoadTest(LoadTestConfig config, TrafficMix mix) {
+        this.config = config;
+        this.mix = mix;
+        mix.endpoints().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+    }
+
+    Map<String, Object> run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency());
+        for (int i = 0; i < config.concurrency(); i++) {
+            Random random = new Random(config.seed() + i);
+            workers.execute(() -> work(random));
+        }
+
+        log.info("load test warmup {} with {} clients", config.warmup(), config.concurrency());
+        Thread.sleep(config.warmup().toMillis());
+        stats.values().forEach(EndpointStats::reset);
+
+        log.info("load test measuring {}", config.duration());
+        long start = System.nanoTime();
+        Thread.sleep(config.duration().toMillis());
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> endpoints.put(endpoint, endpointStats.report(elapsedSeconds)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now());
+        report.put("config", config);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private void work(Random random) {
+        while (running) {
+            TrafficMix.Request request = mix.next(random);
+            HttpRequest httpRequest = HttpRequest.newBuilder(request.uri())
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+
+            long start = System.nanoTime();
+            boolean error;
+            try {
+                HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                error = response.statusCode() >= 400;
+            } catch (IOException e) {
+                error = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // 측정이 끝난 뒤 돌아온 응답은 기록하지 않는다
+            if (running) {
+                stats.get(request.endpoint()).record(System.nanoTime() - start, error);
+            }
+        }
+    }
+
+    private static void writeReport(LoadTestConfig config, Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+
+        String json = objectMapper.writeValueAsString(report);
+        if (config.report().getParent() != null) {
+            Files.createDirectories(config.report().getParent());
+        }
+        Files.writeString(config.report(), json);
+
+        log.info("load test report written to {}", config.report().toAbsolutePath());
+    }
+}
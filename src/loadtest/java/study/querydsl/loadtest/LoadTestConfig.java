@@ -0,0 +1,86 @@
+package study.querydsl.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import study.querydsl.controller.DatasetProfile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 부하 테스트 설정 (시스템 프로퍼티 loadTest.*, gradle 에서는 -PloadTest.*)
+ *
+ * @param dataset     채울 데이터 (members, teams, teamSkew, usernameSkew, ageClusters, seed)
+ * @param concurrency 동시 클라이언트 수 (각자 응답을 받으면 바로 다음 요청)
+ * @param warmup      측정 전 워밍업 시간
+ * @param duration    측정 시간
+ * @param mix         엔드포인트별 비율 (v1, v2, v3)
+ * @param maxPage     v2, v3 에서 요청할 최대 페이지 번호
+ * @param pageSize    v2, v3 페이지 크기
+ * @param seed        데이터/요청 생성 난수 시드 (같은 시드면 같은 데이터, 같은 요청 순서)
+ * @param report      결과 JSON 경로
+ * @param appArgs     애플리케이션에 넘길 설정 (loadTest.app.xxx=yyy -> --xxx=yyy)
+ *                    결과/카운트 캐시는 기본으로 끈다 (반복 요청이 캐시에서 끝나 DB 경로를 재지 못한다)
+ *                    캐시를 켠 측정은 -PloadTest.app.querydsl.result-cache.enabled=true 로 따로 돌린다
+ */
+public record LoadTestConfig(DatasetProfile dataset, int concurrency, Duration warmup, Duration duration,
+                             Map<String, Integer> mix, int maxPage, int pageSize, long seed, Path report,
+                             Map<String, String> appArgs) {
+
+    private static final String PREFIX = "loadTest.";
+    private static final String APP_PREFIX = PREFIX + "app.";
+
+    public static LoadTestConfig fromSystemProperties() {
+        Properties properties = System.getProperties();
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        appArgs.put("querydsl.result-cache.enabled", "false");
+        appArgs.put("querydsl.count-cache.enabled", "false");
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(APP_PREFIX)) {
+                appArgs.put(name.substring(APP_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+
+        long seed = Long.parseLong(property("seed", String.valueOf(DatasetProfile.DEFAULT_SEED)));
+        DatasetProfile dataset = DatasetProfile.uniform(intProperty("members", 10_000), intProperty("teams", 10))
+                .withTeamSkew(Double.parseDouble(property("teamSkew", "0")))
+                .withUsernameSkew(Double.parseDouble(property("usernameSkew", "0")))
+                .withAgeClusters(intProperty("ageClusters", 0))
+                .withSeed(seed);
+
+        return new LoadTestConfig(
+                dataset,
+                intProperty("concurrency", 32),
+                durationProperty("warmup", "10s"),
+                durationProperty("duration", "30s"),
+                parseMix(property("mix", "v1:1,v2:1,v3:2")),
+                intProperty("maxPage", 50),
+                intProperty("pageSize", 20),
+                seed,
+                Path.of(property("report", "build/reports/loadtest/loadtest.json")),
+                appArgs);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] endpointAndWeight = entry.trim().split(":");
+            weights.put(endpointAndWeight[0], endpointAndWeight.length > 1 ? Integer.parseInt(endpointAndWeight[1]) : 1);
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, String.valueOf(defaultValue)));
+    }
+
+    private static Duration durationProperty(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.loadtest;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import study.querydsl.controller.MemberBulkLoader;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 엔드포인트 비율에 맞춰 검색 조건, 페이지를 섞은 요청을 만든다
+ *
+ * 조건: 없음 / 회원명 / 팀명 / 나이 범위 / 팀명 + 나이 범위 (v1 은 전체 조회가 너무 커서 조건 없음은 제외)
+ * 페이지: 0 ~ maxPage (앞쪽 페이지가 더 자주 나오도록 제곱 분포)
+ */
+public class TrafficMix {
+
+    public record Request(String endpoint, URI uri) {
+    }
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final List<String> weightedEndpoints = new ArrayList<>();
+
+    public TrafficMix(String baseUrl, LoadTestConfig config) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        for (Map.Entry<String, Integer> entry : config.mix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weightedEndpoints.add(entry.getKey());
+            }
+        }
+    }
+
+    public List<String> endpoints() {
+        return List.copyOf(config.mix().keySet());
+    }
+
+    public Request next(Random random) {
+        String endpoint = weightedEndpoints.get(random.nextInt(weightedEndpoints.size()));
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(baseUrl).path("/" + endpoint + "/members");
+
+        boolean paged = !endpoint.equals("v1");
+        switch (random.nextInt(paged ? 5 : 4)) {
+            case 0 -> uri.queryParam("username", "member" + random.nextInt(config.dataset().memberCount()));
+            case 1 -> uri.queryParam("teamName", teamName(random));
+            case 2 -> ageRange(uri, random);
+            case 3 -> {
+                uri.queryParam("teamName", teamName(random));
+                ageRange(uri, random);
+            }
+            default -> {
+                // 조건 없음
+            }
+        }
+
+        if (paged) {
+            double skew = random.nextDouble();
+            uri.queryParam("page", (int) (skew * skew * (config.maxPage() + 1)))
+                    .queryParam("size", config.pageSize());
+        }
+        return new Request(endpoint, uri.build().toUri());
+    }
+
+    private String teamName(Random random) {
+        return MemberBulkLoader.teamName(random.nextInt(config.dataset().teamCount()));
+    }
+
+    private static void ageRange(UriComponentsBuilder uri, Random random) {
+        int ageGoe = random.nextInt(90);
+        uri.queryParam("ageGoe", ageGoe).queryParam("ageLoe", ageGoe + 10);
+    }
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.support.InstrumentedJPAQueryFactory;
+import study.querydsl.repository.support.QueryMetrics;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -13,8 +15,11 @@ public class QuerydslApplication {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	/**
+	 * 실행되는 모든 Querydsl 쿼리의 시간/건수를 리포지토리 메서드별로 /actuator/metrics 에 기록
+	 */
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+		return new InstrumentedJPAQueryFactory(em, queryMetrics);
 	}
 }
@@ -0,0 +1,35 @@
+package study.querydsl.controller;
+
+import lombok.With;
+
+/**
+ * 적재할 데이터의 크기와 분포
+ *
+ * - teamSkew     0 이면 i % teamCount 로 고르게, 0 보다 크면 Zipf 지수 (1.0 이면 teamA 가 전체의 ~1/H(n), 팀 하나에 수백만 명도 가능)
+ * - usernameSkew 0 이면 member0 ~ member(n-1) 모두 다르게, 0 보다 크면 인기 있는 이름이 반복되는 Zipf 분포
+ * - ageClusters  0 이면 i % 100, 0 보다 크면 시드로 고른 나이 중심 몇 개 주변에 몰리게 (표준편차 ageSpread)
+ * - seed         같은 값이면 같은 데이터
+ *
+ * 기본값({@link #uniform})은 기존 적재 데이터와 같다
+ */
+@With
+public record DatasetProfile(int memberCount, int teamCount,
+                             double teamSkew, double usernameSkew,
+                             int ageClusters, double ageSpread,
+                             long seed) {
+
+    public static final long DEFAULT_SEED = 42;
+
+    public DatasetProfile {
+        if (memberCount < 0 || teamCount < 1) {
+            throw new IllegalArgumentException("memberCount >= 0, teamCount >= 1: " + memberCount + ", " + teamCount);
+        }
+        if (teamSkew < 0 || usernameSkew < 0 || ageClusters < 0 || ageSpread < 0) {
+            throw new IllegalArgumentException("distribution parameters must not be negative");
+        }
+    }
+
+    public static DatasetProfile uniform(int memberCount, int teamCount) {
+        return new DatasetProfile(memberCount, teamCount, 0, 0, 0, 3, DEFAULT_SEED);
+    }
+}
@@ -1,45 +1,44 @@
 package study.querydsl.controller;
 
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberBulkLoader memberBulkLoader;
 
-    @PostConstruct
-    public void init() {
-        initMemberService.init();
-    }
+    // 기본값은 teamA, teamB 에 member0 ~ member99
+    @Value("${querydsl.init.member-count:100}")
+    private int memberCount;
 
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
+    @Value("${querydsl.init.team-count:2}")
+    private int teamCount;
 
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
+    // 분포는 DatasetProfile 참고 (0 이면 고르게/순서대로)
+    @Value("${querydsl.init.team-skew:0}")
+    private double teamSkew;
 
-            em.persist(teamA);
-            em.persist(teamB);
+    @Value("${querydsl.init.username-skew:0}")
+    private double usernameSkew;
 
-            for (int i=0;i<100;i++){
-                Team selecredTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i,i, selecredTeam));
-            }
+    @Value("${querydsl.init.age-clusters:0}")
+    private int ageClusters;
 
-        }
+    @Value("${querydsl.init.seed:" + DatasetProfile.DEFAULT_SEED + "}")
+    private long seed;
+
+    @PostConstruct
+    public void init() {
+        memberBulkLoader.load(DatasetProfile.uniform(memberCount, teamCount)
+                .withTeamSkew(teamSkew)
+                .withUsernameSkew(usernameSkew)
+                .withAgeClusters(ageClusters)
+                .withSeed(seed));
     }
 }
@@ -0,0 +1,120 @@
+package study.querydsl.controller;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 데이터 적재
+ *
+ * - hibernate.jdbc.batch_size 단위로 insert 를 JDBC 배치로 묶는다 (Member 시퀀스 allocationSize 도 맞춰둠)
+ * - batch-size 마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다
+ * - commit-size 마다 커밋해서 트랜잭션(undo)이 한없이 커지지 않게 한다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${querydsl.bulk-load.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${querydsl.bulk-load.commit-size:100000}")
+    private int commitSize;
+
+    /**
+     * member0 ~ member(memberCount-1) 를 teamCount 개 팀에 순서대로 나눠서 적재
+     */
+    public LoadResult load(int memberCount, int teamCount) {
+        return load(DatasetProfile.uniform(memberCount, teamCount));
+    }
+
+    /**
+     * 프로필의 분포대로 적재 (팀 쏠림, 이름 중복, 나이 군집)
+     */
+    public LoadResult load(DatasetProfile profile) {
+        int memberCount = profile.memberCount();
+        int teamCount = profile.teamCount();
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        List<Long> teamIds = transaction.execute(status -> persistTeams(teamCount));
+        MemberDataGenerator generator = new MemberDataGenerator(profile);
+
+        int loaded = 0;
+        while (loaded < memberCount) {
+            int from = loaded;
+            int to = (int) Math.min(memberCount, (long) from + commitSize);
+            transaction.executeWithoutResult(status -> persistMembers(from, to, teamIds, generator));
+            loaded = to;
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            log.info("bulk load members {}/{} ({} rows/s)", loaded, memberCount, rowsPerSecond(loaded, elapsed));
+        }
+
+        LoadResult result = new LoadResult(teamCount, memberCount, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk load finished: {} {}", result, profile);
+        return result;
+    }
+
+    private List<Long> persistTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team(teamName(i));
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        em.flush();
+        em.clear();
+        return teamIds;
+    }
+
+    private void persistMembers(int from, int to, List<Long> teamIds, MemberDataGenerator generator) {
+        for (int i = from; i < to; i++) {
+            MemberDataGenerator.Row row = generator.next(i);
+            Member member = new Member(row.username(), row.age());
+            // 팀은 프록시로만 참조 (team.members 컬렉션을 건드리면 팀마다 회원이 메모리에 쌓인다)
+            member.setTeam(em.getReference(Team.class, teamIds.get(row.teamIndex())));
+            em.persist(member);
+
+            if ((i - from + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * teamA ~ teamZ, 그 이후는 team26, team27 ...
+     */
+    public static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+
+    private static long rowsPerSecond(long rows, Duration elapsed) {
+        long millis = Math.max(1, elapsed.toMillis());
+        return rows * 1000 / millis;
+    }
+
+    public record LoadResult(int teams, int members, Duration elapsed) {
+
+        public long rowsPerSecond() {
+            return MemberBulkLoader.rowsPerSecond(members, elapsed);
+        }
+    }
+}
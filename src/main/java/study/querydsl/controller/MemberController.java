@@ -1,16 +1,39 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.controller.support.DbBulkhead;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberPage;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,20 +41,130 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final DbBulkhead dbBulkhead;
+
+    private static final int MAX_PAGE_SIZE = 1000;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDTO> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+    public CompletableFuture<List<MemberTeamDTO>> searchMemberV1(MemberSearchCondition condition){
+        return dbBulkhead.submit(() -> memberJpaRepository.search(condition));
+    }
+
+    /**
+     * v1 과 같은 결과를 한 건씩 응답에 바로 쓴다 (format=ndjson 기본, format=array 면 JSON 배열)
+     */
+    @GetMapping("/v1/members/stream")
+    public void streamMemberV1(MemberSearchCondition condition,
+                               @RequestParam(defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        boolean array = "array".equals(format);
+        response.setContentType(array ? MediaType.APPLICATION_JSON_VALUE : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        // 한 건마다 flush 하지 않고 서블릿 버퍼가 찰 때마다 내보낸다
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (SequenceWriter sequence = array
+                ? writer.writeValuesAsArray(response.getOutputStream())
+                : writer.withRootValueSeparator("\n").writeValues(response.getOutputStream())) {
+            memberJpaRepository.streamSearch(condition, dto -> {
+                try {
+                    sequence.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * v1 과 같은 결과를 컬럼 단위 배열로 (행 객체 대신 기본형 배열 + 문자열 사전)
+     */
+    @GetMapping("/v1/members/columns")
+    public CompletableFuture<MemberTeamColumns> searchMemberColumnsV1(MemberSearchCondition condition){
+        return dbBulkhead.submit(() -> memberJpaRepository.searchColumns(condition));
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDTO> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageSimple(condition,pageable);
+    public CompletableFuture<Page<MemberTeamDTO>> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+        return dbBulkhead.submit(() -> memberRepository.searchPageSimple(condition,pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDTO> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageComplex(condition,pageable);
+    public CompletableFuture<Page<MemberTeamDTO>> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+        return dbBulkhead.submit(() -> memberRepository.searchPageComplex(condition,pageable));
+    }
+
+    /**
+     * v2, v3 와 같은 검색을 간결한 페이지 응답으로 (content, page, size, totalElements, totalPages)
+     * PageImpl 의 pageable, sort 등은 빼고 MemberPageHttpMessageConverter 가 바로 쓴다
+     */
+    @GetMapping("/v2/members/compact")
+    public CompletableFuture<MemberPage> searchMemberV2Compact(MemberSearchCondition condition, Pageable pageable){
+        return dbBulkhead.submit(() -> MemberPage.of(memberRepository.searchPageSimple(condition, pageable)));
+    }
+
+    @GetMapping("/v3/members/compact")
+    public CompletableFuture<MemberPage> searchMemberV3Compact(MemberSearchCondition condition, Pageable pageable){
+        return dbBulkhead.submit(() -> MemberPage.of(memberRepository.searchPageComplex(condition, pageable)));
+    }
+
+    /**
+     * 커서 기반 페이징 - 페이지 깊이와 상관없이 인덱스로 바로 찾아감
+     */
+    @GetMapping("/v4/members")
+    public CompletableFuture<MemberCursorPage> searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "ID") MemberCursor.Sort sort,
+                                           @RequestParam(defaultValue = "20") int size){
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        MemberCursor memberCursor = toCursor(cursor, sort);
+        return dbBulkhead.submit(() -> memberRepository.searchByCursor(condition, memberCursor, size));
+    }
+
+    /**
+     * 필요한 필드만 페이징 조회 (fields=memberId,username,age,teamId,teamName 중 선택, 없으면 전체)
+     * 페이지 크기는 v4 와 같은 상한
+     */
+    @GetMapping("/v5/members")
+    public CompletableFuture<Page<Map<String, Object>>> searchMemberV5(MemberSearchCondition condition,
+                                                                       @RequestParam(required = false) String fields,
+                                                                       Pageable pageable){
+        if (pageable.getPageSize() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Set<MemberField> memberFields = toFields(fields);
+        return dbBulkhead.submit(() -> memberRepository.searchFields(condition, memberFields, pageable));
+    }
+
+    /**
+     * 요청 마감 시간(querydsl.deadline.timeout)을 넘긴 쿼리
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ProblemDetail queryTimeout(QueryTimeoutException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.GATEWAY_TIMEOUT, "query deadline exceeded");
+    }
+
+    private Set<MemberField> toFields(String fields) {
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private MemberCursor toCursor(String cursor, MemberCursor.Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return MemberCursor.first(sort);
+        }
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
 
@@ -0,0 +1,109 @@
+package study.querydsl.controller;
+
+import java.util.SplittableRandom;
+
+/**
+ * DatasetProfile 에 맞춰 회원 한 명씩 (이름, 나이, 팀 번호)를 만든다
+ *
+ * 시드 난수를 순서대로 소비하므로 같은 프로필이면 0 번부터 차례로 호출했을 때 항상 같은 결과가 나온다
+ * 건수가 수천만이어도 메모리는 일정 (Zipf 는 누적분포 표를 만들지 않는 rejection-inversion 샘플링)
+ */
+public class MemberDataGenerator {
+
+    public record Row(String username, int age, int teamIndex) {
+    }
+
+    private static final int MAX_AGE = 99;
+
+    private final DatasetProfile profile;
+    private final SplittableRandom random;
+    private final ZipfSampler teams;
+    private final ZipfSampler usernames;
+    private final int[] ageCenters;
+
+    public MemberDataGenerator(DatasetProfile profile) {
+        this.profile = profile;
+        this.random = new SplittableRandom(profile.seed());
+        this.teams = profile.teamSkew() > 0 ? new ZipfSampler(profile.teamCount(), profile.teamSkew()) : null;
+        this.usernames = profile.usernameSkew() > 0 && profile.memberCount() > 0
+                ? new ZipfSampler(profile.memberCount(), profile.usernameSkew()) : null;
+        this.ageCenters = new int[profile.ageClusters()];
+        for (int c = 0; c < ageCenters.length; c++) {
+            ageCenters[c] = random.nextInt(18, 81);
+        }
+    }
+
+    /**
+     * index 번째 회원 (0 부터 순서대로 호출)
+     */
+    public Row next(int index) {
+        String username = usernames == null ? "member" + index : "member" + (usernames.sample(random) - 1);
+        int teamIndex = teams == null ? index % profile.teamCount() : teams.sample(random) - 1;
+        return new Row(username, age(index), teamIndex);
+    }
+
+    private int age(int index) {
+        if (ageCenters.length == 0) {
+            return index % 100;
+        }
+        int center = ageCenters[random.nextInt(ageCenters.length)];
+        long age = Math.round(center + random.nextGaussian() * profile.ageSpread());
+        return (int) Math.max(0, Math.min(MAX_AGE, age));
+    }
+
+    /**
+     * 1 ~ n 중 k 가 나올 확률이 1/k^exponent 에 비례
+     * Hörmann, Derflinger "Rejection-inversion to generate variates from monotone discrete distributions" (1996)
+     */
+    static final class ZipfSampler {
+
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) Math.max(1, Math.min(n, (long) (x + 0.5)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, x 가 0 근처일 때도 정확하게
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, x 가 0 근처일 때도 정확하게
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+}
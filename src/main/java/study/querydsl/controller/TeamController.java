@@ -0,0 +1,40 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.TeamDTO;
+import study.querydsl.dto.TeamStatsDTO;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.repository.TeamStatistics;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatistics teamStatistics;
+    private final TeamRepository teamRepository;
+
+    /**
+     * 팀명으로 조회 - 쿼리 캐시 + 2차 캐시에서 응답 (team 이 바뀌면 하이버네이트가 무효화)
+     */
+    @GetMapping("/v1/teams")
+    public TeamDTO findTeam(@RequestParam String name){
+        return teamRepository.findByName(name)
+                .map(team -> new TeamDTO(team.getId(), team.getName()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "team not found: " + name));
+    }
+
+    /**
+     * 팀별 나이 집계 - 미리 유지하고 있는 값을 돌려주므로 회원 수와 상관없이 팀 수만큼만 비용
+     */
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDTO> teamStats(){
+        return teamStatistics.findAll();
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.controller.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.repository.support.QueryDeadline;
+
+/**
+ * 비동기 요청(CompletableFuture 응답)이 끝나기 전에 클라이언트가 연결을 끊거나 비동기 타임아웃이 나면
+ * 요청의 QueryDeadline 을 취소해서 실행 중인 JDBC 문장을 멈춘다 (응답 받을 곳이 없는 쿼리가 DB 시간을 쓰지 않도록)
+ *
+ * 동기 요청(DbBulkhead 꺼짐)은 톰캣 스레드가 쿼리를 실행 중이라 끊김을 알 수 없으므로 query timeout 에만 의존한다
+ */
+@Component
+public class ClientDisconnectCancellation implements DeferredResultProcessingInterceptor, WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerDeferredResultInterceptors(this);
+    }
+
+    @Override
+    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        cancel(request);
+        return true;
+    }
+
+    @Override
+    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+        cancel(request);
+        return true;
+    }
+
+    private static void cancel(NativeWebRequest request) {
+        Object deadline = request.getAttribute(RequestDeadlineFilter.DEADLINE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (deadline instanceof QueryDeadline queryDeadline) {
+            queryDeadline.cancel();
+        }
+    }
+}
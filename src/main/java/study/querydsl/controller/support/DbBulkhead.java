@@ -0,0 +1,184 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.repository.support.PageExecutor;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.ReadYourWrites;
+import study.querydsl.repository.support.StatementRecorder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * DB 를 쓰는 요청 격벽 (bulkhead)
+ *
+ * querydsl.bulkhead.enabled=true 이면 요청을 톰캣 스레드가 아니라 요청마다 새 스레드(JDK 21 이상이면 가상 스레드)에서 실행하고
+ * 동시에 DB 를 쓰는 요청 수를 세마포어(permits)로 제한한다
+ * (기본: 커넥션 풀, 동시 카운트를 켜면 PageExecutor 의 몫을 뺀 나머지)
+ * - 대기 중인 요청이 max-queue 이상이면 스레드를 만들지 않고 바로 429
+ * - 예상 대기 시간(대기 순서 x 최근 처리 시간 / permits)이 max-wait 를 넘으면 기다려 보지 않고 바로 429
+ * - 그래도 max-wait 안에 차례가 오지 않으면 429 (커넥션 풀에서 타임아웃 날 때까지 기다리게 하지 않는다)
+ *
+ * 메트릭
+ * - querydsl.bulkhead.wait{outcome=acquired|rejected} : 대기 시간
+ * - querydsl.bulkhead.queue / querydsl.bulkhead.available : 대기 중인 요청 수 / 남은 자리
+ */
+@Component
+public class DbBulkhead implements DisposableBean {
+
+    // 최근 처리 시간의 지수 이동 평균 가중치 (1/8)
+    private static final int SERVICE_TIME_SMOOTHING = 8;
+
+    private final StatementRecorder statementRecorder;
+    private final boolean enabled;
+    private final int permitCount;
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final int maxQueue;
+    private final SimpleAsyncTaskExecutor executor;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong serviceNanos = new AtomicLong();
+    private final Timer acquired;
+    private final Timer rejected;
+
+    public DbBulkhead(MeterRegistry meterRegistry,
+                      StatementRecorder statementRecorder,
+                      @Value("${querydsl.bulkhead.enabled:false}") boolean enabled,
+                      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                      @Value("${querydsl.bulkhead.permits:0}") int permits,
+                      @Value("${querydsl.bulkhead.max-wait:500ms}") Duration maxWait,
+                      @Value("${querydsl.bulkhead.max-queue:1000}") int maxQueue,
+                      @Value("${querydsl.page.concurrent-count:false}") boolean concurrentCount,
+                      @Value("${querydsl.page.count-permits:0}") int countPermits) {
+        this.statementRecorder = statementRecorder;
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.maxQueue = maxQueue;
+
+        int countShare = !concurrentCount ? 0
+                : countPermits > 0 ? countPermits : PageExecutor.defaultCountPermits(poolSize);
+        this.permitCount = permits > 0 ? permits : defaultPermits(poolSize, countShare);
+        this.permits = new Semaphore(permitCount, true);
+
+        this.executor = new SimpleAsyncTaskExecutor("member-request-");
+        this.executor.setVirtualThreads(Runtime.version().feature() >= 21);
+
+        this.acquired = Timer.builder("querydsl.bulkhead.wait").tag("outcome", "acquired")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.rejected = Timer.builder("querydsl.bulkhead.wait").tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("querydsl.bulkhead.queue", waiting, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("querydsl.bulkhead.available", this.permits, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    /**
+     * 커넥션 풀 중 동시 카운트(PageExecutor)가 쓰지 않는 나머지 (동시 카운트가 꺼져 있으면 countShare 는 0)
+     * 두 쪽을 합쳐도 풀 크기를 넘지 않으므로 요청이 카운트용 커넥션을 기다리며 교착되지 않는다
+     */
+    public static int defaultPermits(int poolSize, int countShare) {
+        return Math.max(1, poolSize - countShare);
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+
+    /**
+     * 꺼져 있으면 호출한 스레드에서 그대로 실행
+     * 예외는 그대로 전달되므로 스프링 MVC 의 예외 처리(ResponseStatusException 등)가 똑같이 동작한다
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+
+        // 요청 스레드의 SQL 기록(StatementBudgetFilter), 마감 시간(RequestDeadlineFilter), 클라이언트(ReadYourWritesFilter)를
+        // 작업 스레드에서도 이어서 쓴다
+        Supplier<T> recorded = QueryDeadline.wrap(ReadYourWrites.wrap(statementRecorder.wrap(task)));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        // 기다리는 요청이 있으면 새치기하지 않는다 (tryAcquire 는 공정성을 무시)
+        if (waiting.get() == 0 && permits.tryAcquire()) {
+            acquired.record(0, TimeUnit.NANOSECONDS);
+            executor.execute(() -> run(recorded, result));
+            return result;
+        }
+
+        int position = waiting.incrementAndGet();
+        if (position > maxQueue || expectedWaitNanos(position) > maxWait.toNanos()) {
+            waiting.decrementAndGet();
+            rejected.record(Duration.ZERO);
+            return CompletableFuture.failedFuture(tooManyRequests());
+        }
+
+        executor.execute(() -> {
+            boolean permitted;
+            try {
+                permitted = permits.tryAcquire(maxWait.toNanos() - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                permitted = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!permitted) {
+                rejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                result.completeExceptionally(tooManyRequests());
+                return;
+            }
+            acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            run(recorded, result);
+        });
+        return result;
+    }
+
+    /**
+     * 자리를 잡은 상태에서 실행하고, 처리 시간을 기록하고 자리를 돌려준 뒤에 응답한다
+     */
+    private <T> void run(Supplier<T> task, CompletableFuture<T> result) {
+        long start = System.nanoTime();
+        T value = null;
+        Throwable failure = null;
+        try {
+            value = task.get();
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            serviceNanos.accumulateAndGet(System.nanoTime() - start, (average, sample) ->
+                    average == 0 ? sample : average + (sample - average) / SERVICE_TIME_SMOOTHING);
+            permits.release();
+        }
+        if (failure == null) {
+            result.complete(value);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * position 번째로 기다리는 요청은 앞의 요청들이 permits 개씩 처리된 뒤에 차례가 온다
+     * 아직 처리한 요청이 없으면 0 (max-wait 로만 제한)
+     */
+    private long expectedWaitNanos(int position) {
+        return position * serviceNanos.get() / permitCount;
+    }
+
+    private static ResponseStatusException tooManyRequests() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "database is busy, retry later");
+    }
+}
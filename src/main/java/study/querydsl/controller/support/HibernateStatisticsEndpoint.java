@@ -0,0 +1,104 @@
+package study.querydsl.controller.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.QueryOriginStatistics;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * /actuator/hibernate
+ *
+ * - GET    : 세션 팩토리 전체 통계 + 쿼리별 통계 (총 실행 시간이 큰 순서, 실행한 리포지토리 메서드 포함)
+ * - DELETE : 통계 초기화 (변경 전/후 비교용)
+ *
+ * 쿼리별 통계는 쿼리 문자열 수만큼 시계열이 늘어나므로 메트릭으로 내보내지 않고 여기서만 본다
+ * (전체 통계 메트릭은 hibernate-micrometer 의 HibernateMetrics 가 hibernate.* 로 내보낸다)
+ * 웹 노출은 local, test 프로필에서만 (application.yml)
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    private final Statistics statistics;
+    private final QueryOriginStatistics queryOrigins;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, QueryOriginStatistics queryOrigins) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.queryOrigins = queryOrigins;
+    }
+
+    @ReadOperation
+    public HibernateStatistics statistics() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("entityLoads", statistics.getEntityLoadCount());
+        totals.put("entityFetches", statistics.getEntityFetchCount());
+        totals.put("collectionLoads", statistics.getCollectionLoadCount());
+        totals.put("collectionFetches", statistics.getCollectionFetchCount());
+        totals.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        totals.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        totals.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        totals.put("queryPlanCacheHits", statistics.getQueryPlanCacheHitCount());
+        totals.put("queryPlanCacheMisses", statistics.getQueryPlanCacheMissCount());
+        totals.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        totals.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        totals.put("queryExecutions", statistics.getQueryExecutionCount());
+        totals.put("queryExecutionMaxMillis", statistics.getQueryExecutionMaxTime());
+        totals.put("statements", statistics.getPrepareStatementCount());
+        totals.put("connections", statistics.getConnectCount());
+        totals.put("sessions", statistics.getSessionOpenCount());
+        totals.put("transactions", statistics.getTransactionCount());
+        totals.put("flushes", statistics.getFlushCount());
+        totals.put("optimisticFailures", statistics.getOptimisticFailureCount());
+
+        List<QueryStats> queries = Arrays.stream(statistics.getQueries())
+                .map(this::queryStats)
+                .sorted(Comparator.comparingLong(QueryStats::totalMillis).reversed())
+                .toList();
+
+        return new HibernateStatistics(statistics.isStatisticsEnabled(), Instant.ofEpochMilli(statistics.getStartTime()),
+                totals, statistics.getQueryExecutionMaxTimeQueryString(), queries);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+        queryOrigins.clear();
+    }
+
+    private QueryStats queryStats(String query) {
+        QueryStatistics stats = statistics.getQueryStatistics(query);
+        return new QueryStats(query, queryOrigins.origins(query),
+                stats.getExecutionCount(),
+                stats.getExecutionRowCount(),
+                Math.round(stats.getExecutionAvgTimeAsDouble() * stats.getExecutionCount()),
+                stats.getExecutionAvgTime(),
+                stats.getExecutionMaxTime(),
+                stats.getExecutionMinTime(),
+                stats.getPlanCacheHitCount(),
+                stats.getPlanCacheMissCount(),
+                stats.getCacheHitCount(),
+                stats.getCacheMissCount());
+    }
+
+    public record HibernateStatistics(boolean enabled, Instant since, Map<String, Long> totals,
+                                      String slowestQuery, List<QueryStats> queries) {
+    }
+
+    public record QueryStats(String query, Set<String> methods, long executions, long rows,
+                             long totalMillis, long avgMillis, long maxMillis, long minMillis,
+                             long planCacheHits, long planCacheMisses, long cacheHits, long cacheMisses) {
+    }
+}
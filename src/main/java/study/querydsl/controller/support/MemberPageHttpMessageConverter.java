@@ -0,0 +1,119 @@
+package study.querydsl.controller.support;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import study.querydsl.dto.MemberPage;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.io.IOException;
+
+/**
+ * MemberPage 를 JsonGenerator 로 응답 스트림에 바로 쓴다
+ *
+ * Jackson 빈 직렬화(리플렉션, 프로퍼티 탐색) 없이 필드 이름은 미리 인코딩해둔 SerializedString 을 쓴다
+ * 빈으로 등록하면 스프링 부트가 기본 Jackson 컨버터보다 앞에 둔다. gzip 은 server.compression 설정으로
+ */
+@Component
+public class MemberPageHttpMessageConverter extends AbstractHttpMessageConverter<MemberPage> {
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString PAGE = new SerializedString("page");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializableString TOTAL_PAGES = new SerializedString("totalPages");
+
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+
+    private final JsonFactory jsonFactory;
+
+    public MemberPageHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberPage.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberPage readInternal(Class<? extends MemberPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberPage is a response-only type", inputMessage);
+    }
+
+    /**
+     * 제너레이터를 닫으면 버퍼만 비우고 응답 스트림은 닫지 않는다 (스트림은 컨테이너가 닫는다)
+     */
+    @Override
+    protected void writeInternal(MemberPage page, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            write(page, generator);
+        }
+    }
+
+    public static void write(MemberPage page, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray();
+        for (MemberTeamDTO member : page.getContent()) {
+            writeMember(member, generator);
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(PAGE);
+        generator.writeNumber(page.getPage());
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(TOTAL_ELEMENTS);
+        generator.writeNumber(page.getTotalElements());
+        generator.writeFieldName(TOTAL_PAGES);
+        generator.writeNumber(page.getTotalPages());
+
+        generator.writeEndObject();
+    }
+
+    private static void writeMember(MemberTeamDTO member, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(MEMBER_ID);
+        writeNullable(member.getMemberId(), generator);
+        generator.writeFieldName(USERNAME);
+        generator.writeString(member.getUsername());
+        generator.writeFieldName(AGE);
+        generator.writeNumber(member.getAge());
+        generator.writeFieldName(TEAM_ID);
+        writeNullable(member.getTeamId(), generator);
+        generator.writeFieldName(TEAM_NAME);
+        generator.writeString(member.getTeamName());
+        generator.writeEndObject();
+    }
+
+    private static void writeNullable(Long value, JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
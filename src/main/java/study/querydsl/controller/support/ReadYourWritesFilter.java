@@ -0,0 +1,87 @@
+package study.querydsl.controller.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import study.querydsl.repository.support.ReadYourWrites;
+
+import java.io.IOException;
+
+/**
+ * querydsl.replica.enabled=true 이면 요청마다 클라이언트의 마지막 쓰기 시각(last-write 쿠키)을 ReadYourWrites 로 묶는다
+ *
+ * 요청 중에 쓰기가 커밋되면 커밋 시각을 쿠키로 돌려준다 (max-age 는 read-your-writes 시간)
+ * 그래서 쓴 클라이언트의 다음 요청만 primary 에서 읽고, 다른 클라이언트는 계속 replica 에서 읽는다
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "last-write";
+    static final String CLIENT_ATTRIBUTE = ReadYourWritesFilter.class.getName() + ".client";
+
+    private final ReadYourWrites readYourWrites;
+    private final boolean enabled;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites,
+                                @Value("${querydsl.replica.enabled:false}") boolean enabled) {
+        this.readYourWrites = readYourWrites;
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWrites.Client client = (ReadYourWrites.Client) request.getAttribute(CLIENT_ATTRIBUTE);
+        if (client == null) {
+            client = new ReadYourWrites.Client(lastWriteMillis(request), writtenAt -> addCookie(response, writtenAt));
+            request.setAttribute(CLIENT_ATTRIBUTE, client);
+        }
+
+        try (ReadYourWrites.Scope ignored = client.bind()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static long lastWriteMillis(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 쓰기는 응답을 쓰기 전에 커밋되므로 보통은 헤더를 실을 수 있다
+     * (이미 응답이 나갔으면 이번 클라이언트는 다음 쓰기까지 replica 에서 읽는다)
+     */
+    private void addCookie(HttpServletResponse response, long writtenAt) {
+        if (response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, Long.toString(writtenAt));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, readYourWrites.window().toSeconds() + 1));
+        response.addCookie(cookie);
+    }
+}
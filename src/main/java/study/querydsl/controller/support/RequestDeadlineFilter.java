@@ -0,0 +1,55 @@
+package study.querydsl.controller.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.querydsl.repository.support.QueryDeadline;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * HTTP 요청마다 querydsl.deadline.timeout 뒤로 쿼리 마감 시간을 건다 (0 이면 끔)
+ *
+ * 컨트롤러 -> 리포지토리의 모든 JPAQuery 에 남은 시간이 query timeout 으로 걸리고
+ * 비동기 요청(DbBulkhead)은 작업 스레드로 이어진다. 클라이언트가 끊으면 ClientDisconnectCancellation 이 취소한다
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    static final String DEADLINE_ATTRIBUTE = RequestDeadlineFilter.class.getName() + ".deadline";
+
+    private final Duration timeout;
+
+    public RequestDeadlineFilter(@Value("${querydsl.deadline.timeout:0s}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return timeout.isZero();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryDeadline deadline = (QueryDeadline) request.getAttribute(DEADLINE_ATTRIBUTE);
+        if (deadline == null) {
+            deadline = QueryDeadline.after(timeout);
+            request.setAttribute(DEADLINE_ATTRIBUTE, deadline);
+        }
+
+        try (QueryDeadline.Scope ignored = deadline.bind()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
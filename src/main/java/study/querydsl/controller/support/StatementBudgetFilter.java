@@ -0,0 +1,53 @@
+package study.querydsl.controller.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.querydsl.repository.support.StatementBudget;
+import study.querydsl.repository.support.StatementRecorder;
+import study.querydsl.repository.support.StatementRecording;
+
+import java.io.IOException;
+
+/**
+ * HTTP 요청마다 실행된 SQL 을 세서 StatementBudget 으로 검사
+ *
+ * 비동기 요청(DbBulkhead)은 작업 스레드에서도 같은 기록을 쓰고, 비동기 디스패치가 끝날 때 검사한다
+ * 검사 시점에는 응답이 이미 커밋되어 있으므로 querydsl.statements.fail 이어도 예외 대신 경고 로그
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final String RECORDING_ATTRIBUTE = StatementBudgetFilter.class.getName() + ".recording";
+
+    private final StatementRecorder statementRecorder;
+    private final StatementBudget statementBudget;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementRecording recording = (StatementRecording) request.getAttribute(RECORDING_ATTRIBUTE);
+        if (recording == null) {
+            recording = new StatementRecording();
+            request.setAttribute(RECORDING_ATTRIBUTE, recording);
+        }
+
+        try (StatementRecorder.Scope ignored = statementRecorder.bind(recording)) {
+            filterChain.doFilter(request, response);
+        }
+
+        if (!isAsyncStarted(request)) {
+            statementBudget.warn(request.getMethod() + " " + request.getRequestURI(), recording);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberBulkResult {
+    private long totalRows;
+    private List<Chunk> chunks;
+
+    public MemberBulkResult(long totalRows, List<Chunk> chunks) {
+        this.totalRows = totalRows;
+        this.chunks = chunks;
+    }
+
+    /**
+     * member_id 구간 하나에 대한 처리 결과
+     */
+    @Data
+    public static class Chunk {
+        private long fromId;
+        private long toId;
+        private long rows;
+        private long elapsedMillis;
+
+        public Chunk(long fromId, long toId, long rows, long elapsedMillis) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
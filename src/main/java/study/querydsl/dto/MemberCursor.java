@@ -0,0 +1,67 @@
+package study.querydsl.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 클라이언트에게는 base64 문자열로만 노출한다 (opaque)
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MemberCursor {
+
+    public enum Sort {
+        ID,  // member_id
+        AGE  // age, member_id (member_id 는 동률 처리용)
+    }
+
+    private final Sort sort;
+    private final Long lastId;
+    private final Integer lastAge;
+
+    private MemberCursor(Sort sort, Long lastId, Integer lastAge) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastAge = lastAge;
+    }
+
+    public static MemberCursor first(Sort sort) {
+        return new MemberCursor(sort, null, null);
+    }
+
+    public static MemberCursor after(MemberTeamDTO last, Sort sort) {
+        return new MemberCursor(sort, last.getMemberId(), sort == Sort.AGE ? last.getAge() : null);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String encode() {
+        String raw = sort == Sort.AGE
+                ? sort.name() + ":" + lastId + ":" + lastAge
+                : sort.name() + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            Sort sort = Sort.valueOf(parts[0]);
+            Long lastId = Long.valueOf(parts[1]);
+            if (sort == Sort.AGE) {
+                return new MemberCursor(sort, lastId, Integer.valueOf(parts[2]));
+            }
+            return new MemberCursor(sort, lastId, null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorPage {
+    private List<MemberTeamDTO> content;
+    private String nextCursor; // 마지막 페이지면 null
+    private boolean hasNext;
+
+    public MemberCursorPage(List<MemberTeamDTO> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
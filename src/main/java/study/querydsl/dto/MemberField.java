@@ -0,0 +1,47 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 회원 검색에서 클라이언트가 고를 수 있는 필드 (이름은 MemberTeamDTO 프로퍼티와 같다)
+ */
+@Getter
+public enum MemberField {
+    MEMBER_ID("memberId"),
+    USERNAME("username"),
+    AGE("age"),
+    TEAM_ID("teamId"),
+    TEAM_NAME("teamName");
+
+    private final String fieldName;
+
+    MemberField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * "memberId,username" -> [MEMBER_ID, USERNAME] (비어 있으면 전체)
+     */
+    public static Set<MemberField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(MemberField.class);
+        }
+        Set<MemberField> result = EnumSet.noneOf(MemberField.class);
+        for (String name : fields.split(",")) {
+            result.add(of(name.trim()));
+        }
+        return result;
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("unknown field: " + fieldName);
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * 회원 검색 페이지 응답 (PageImpl 대신 필요한 필드만)
+ * MemberPageHttpMessageConverter 가 리플렉션 없이 바로 JSON 으로 쓴다
+ */
+@Data
+public class MemberPage {
+    private List<MemberTeamDTO> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public MemberPage(List<MemberTeamDTO> content, int page, int size, long totalElements, int totalPages) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+    }
+
+    public static MemberPage of(Page<MemberTeamDTO> page) {
+        return new MemberPage(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MemberTeamDTO 목록을 컬럼 단위 기본형 배열로 담은 결과 (분석용 대량 조회)
+ *
+ * i 번째 행 = memberIds[i], usernames[usernameCodes[i]], ages[i], teamIds[i], teamNames[teamNameCodes[i]]
+ * - 행마다 DTO, Long 박싱 객체를 만들지 않는다
+ * - 문자열은 사전(usernames, teamNames)에 한 번만 담고 행에는 사전 번호만 둔다
+ * - 팀이 없는 회원은 teamIds = 0, teamNameCodes = -1
+ */
+@Getter
+public class MemberTeamColumns {
+
+    public static final long NO_TEAM_ID = 0L;
+    public static final int NO_TEAM_NAME = -1;
+
+    private final int rowCount;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final List<String> usernames;
+    private final int[] usernameCodes;
+    private final List<String> teamNames;
+    private final int[] teamNameCodes;
+
+    private MemberTeamColumns(Builder builder) {
+        this.rowCount = builder.rowCount;
+        this.memberIds = Arrays.copyOf(builder.memberIds, rowCount);
+        this.ages = Arrays.copyOf(builder.ages, rowCount);
+        this.teamIds = Arrays.copyOf(builder.teamIds, rowCount);
+        this.usernames = builder.usernames.values;
+        this.usernameCodes = Arrays.copyOf(builder.usernameCodes, rowCount);
+        this.teamNames = builder.teamNames.values;
+        this.teamNameCodes = Arrays.copyOf(builder.teamNameCodes, rowCount);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private int rowCount;
+        private long[] memberIds = new long[1024];
+        private int[] ages = new int[1024];
+        private long[] teamIds = new long[1024];
+        private int[] usernameCodes = new int[1024];
+        private int[] teamNameCodes = new int[1024];
+        private final Dictionary usernames = new Dictionary();
+        private final Dictionary teamNames = new Dictionary();
+
+        public Builder add(long memberId, String username, int age, Long teamId, String teamName) {
+            if (rowCount == memberIds.length) {
+                grow();
+            }
+            memberIds[rowCount] = memberId;
+            usernameCodes[rowCount] = usernames.code(username);
+            ages[rowCount] = age;
+            teamIds[rowCount] = teamId == null ? NO_TEAM_ID : teamId;
+            teamNameCodes[rowCount] = teamName == null ? NO_TEAM_NAME : teamNames.code(teamName);
+            rowCount++;
+            return this;
+        }
+
+        public MemberTeamColumns build() {
+            return new MemberTeamColumns(this);
+        }
+
+        private void grow() {
+            int capacity = memberIds.length * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+        }
+    }
+
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+    }
+}
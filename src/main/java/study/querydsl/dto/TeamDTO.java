@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamDTO {
+    private Long teamId;
+    private String name;
+
+    public TeamDTO(Long teamId, String name) {
+        this.teamId = teamId;
+        this.name = name;
+    }
+}
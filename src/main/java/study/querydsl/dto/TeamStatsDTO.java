@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 팀별 회원 나이 집계 (QuerydslBasicTest.aggregation / group 과 같은 값)
+ * 회원이 없는 팀은 count 0, max/min null
+ */
+@Data
+@AllArgsConstructor
+public class TeamStatsDTO {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long sum;
+    private double avg;
+    private Integer max;
+    private Integer min;
+}
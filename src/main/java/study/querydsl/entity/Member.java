@@ -3,13 +3,27 @@ package study.querydsl.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+/**
+ * 인덱스는 MemberSearchCondition 검색 조건과 정렬 기준에 맞춘다
+ * - username              : 회원명 일치
+ * - team_id, age          : 팀명 조건(team -> member 조인) + 나이 범위, FK 조인
+ * - age, member_id        : 나이 범위, 나이순 커서 페이징 (member_id 는 PK 라 id 정렬은 PK 인덱스 사용)
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    // 배치 insert 를 위해 시퀀스를 한 번에 jdbc batch_size 만큼 할당
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 1000)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -1,15 +1,27 @@
 package study.querydsl.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 팀은 적고 거의 바뀌지 않으므로 2차 캐시에 올린다 (member.getTeam() 지연 로딩도 캐시에서 해결)
+ * 변경 시 READ_WRITE 전략이 캐시를 갱신하고, 벌크 연산은 하이버네이트가 region 전체를 비운다
+ */
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 @Getter @Setter
 @NoArgsConstructor(access =  AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
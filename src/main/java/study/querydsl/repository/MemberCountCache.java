@@ -0,0 +1,105 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityWriteListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건별 total count 캐시
+ *
+ * Member, Team 이 변경되면 전부 비운다. 조건 하나만 바뀌어도 어떤 count 가 달라질지 알 수 없기 때문
+ * 쓰기 트랜잭션 안에서는 자기가 변경한 내용을 봐야 하므로 캐시를 사용하지 않는다
+ * 무효화 전에 시작한 count 는 세대(generation)로 구분해서 버린다 (MemberResultCache 와 같은 이유)
+ * 히트/미스는 cache.gets{cache=memberCount} 메트릭으로 확인
+ * querydsl.count-cache.enabled=false 면 항상 count 쿼리 실행 (벤치마크, 부하 테스트용)
+ */
+@Component
+public class MemberCountCache {
+
+    private final boolean enabled;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberCountCache(EntityWriteListener writeListener,
+                            MeterRegistry meterRegistry,
+                            @Value("${querydsl.count-cache.enabled:true}") boolean enabled,
+                            @Value("${querydsl.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${querydsl.count-cache.max-size:10000}") long maxSize) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberCount");
+        writeListener.subscribe(type -> {
+            if (type == Member.class || type == Team.class) {
+                invalidateAll();
+            }
+        });
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier counter) {
+        if (!enabled || !cacheable()) {
+            return counter.getAsLong();
+        }
+
+        Key key = Key.of(condition);
+        Entry entry = cache.get(key, k -> count(counter));
+        if (entry.generation() != generation.get()) {
+            // 무효화 전에 시작한 count - 버리고 지금 세대로 다시 센다
+            cache.asMap().computeIfPresent(key, (k, cached) -> cached.generation() != generation.get() ? null : cached);
+            entry = cache.get(key, k -> count(counter));
+        }
+        return entry.count();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Entry count(LongSupplier counter) {
+        long started = generation.get();
+        return new Entry(counter.getAsLong(), started);
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * generation: count 를 시작할 때의 세대
+     */
+    private record Entry(long count, long generation) {
+    }
+
+    /**
+     * 검색에 영향을 주지 않는 빈 문자열은 null 로 맞춰서 같은 키가 되도록 한다
+     */
+    private record Key(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+
+        static Key of(MemberSearchCondition condition) {
+            return new Key(
+                    hasText(condition.getUsername()) ? condition.getUsername() : null,
+                    hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe());
+        }
+    }
+}
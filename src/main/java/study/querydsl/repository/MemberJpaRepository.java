@@ -1,27 +1,36 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.*;
 import static org.springframework.util.StringUtils.hasText;
 import static org.springframework.util.StringUtils.isEmpty;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchQueries.searchPredicates;
 
 @Repository
 @RequiredArgsConstructor
@@ -29,6 +38,11 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory; // @Bean 등록을 하면 롬복으로 쉽게 사용 가능
+    private final MemberSearchQueries searchQueries;
+    private final MemberResultCache resultCache;
+
+    @Value("${querydsl.stream.fetch-size:500}")
+    private int streamFetchSize;
 //    public MemberJpaRepository(EntityManager em) {
 //        this.em = em;
 //        this.queryFactory = new JPAQueryFactory(em);
@@ -36,27 +50,32 @@ public class MemberJpaRepository {
     public void save(Member member) {
         em.persist(member);
     }
+    @Transactional(readOnly = true)
     public Optional<Member> findById(Long id) {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
     }
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl(){
         return queryFactory
                 .selectFrom(member)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername_Querydsl(String username) {
         return queryFactory
                 .selectFrom(member)
@@ -65,6 +84,7 @@ public class MemberJpaRepository {
     }
 
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDTO> searchByBuilder(MemberSearchCondition condition){
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -96,8 +116,22 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * 같은 조건이 반복되면 결과 캐시에서 바로 응답 (미스일 때만 읽기 전용 트랜잭션)
+     */
     public List<MemberTeamDTO> search(MemberSearchCondition condition){
-        return queryFactory
+        return resultCache.get("search", condition, Pageable.unpaged(),
+                () -> searchQueries.fetch(condition));
+    }
+
+    /**
+     * 검색 결과를 List 로 모으지 않고 한 건씩 action 으로 넘긴다 (결과 건수와 상관없이 메모리 일정)
+     * 스트림은 트랜잭션(커넥션)이 살아있는 동안만 읽을 수 있어서 콜백으로 받는다
+     * @return 넘긴 건수
+     */
+    @Transactional(readOnly = true)
+    public long streamSearch(MemberSearchCondition condition, Consumer<MemberTeamDTO> action) {
+        try (Stream<MemberTeamDTO> stream = queryFactory
                 .select(new QMemberTeamDTO(
                         member.id.as("memberId"),
                         member.username,
@@ -107,30 +141,45 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoeEq(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+                .where(searchPredicates(condition))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+
+            // DTO 프로젝션이라 영속성 컨텍스트에 쌓이지 않는다
+            // (em.clear() 는 호출한 쪽 트랜잭션의 플러시 안 된 변경까지 버리므로 하지 않는다)
+            long count = 0;
+            Iterator<MemberTeamDTO> rows = stream.iterator();
+            while (rows.hasNext()) {
+                action.accept(rows.next());
+                count++;
+            }
+            return count;
+        }
     }
 
-    private BooleanExpression ageLoeEq(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 검색 결과를 컬럼 단위 기본형 배열로 (분석용 대량 조회)
+     * Tuple 을 한 건씩 읽어서 바로 배열에 채우므로 DTO 목록을 만들지 않는다
+     */
+    @Transactional(readOnly = true)
+    public MemberTeamColumns searchColumns(MemberSearchCondition condition) {
+        MemberTeamColumns.Builder columns = MemberTeamColumns.builder();
+        try (Stream<Tuple> stream = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            stream.forEach(row -> columns.add(
+                    row.get(member.id),
+                    row.get(member.username),
+                    row.get(member.age),
+                    row.get(team.id),
+                    row.get(team.name)));
+        }
+        return columns.build();
     }
-
-
 }
@@ -1,11 +1,17 @@
 package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface MemberRepositoryCustom {
 
@@ -13,4 +19,21 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDTO> searchPageSimple2(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * offset 대신 마지막으로 읽은 키 이후부터 조회 (키셋 페이징)
+     */
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    /**
+     * 요청한 필드만 페이징 조회 (필드명 -> 값, member_id 순). 팀명이 필요 없으면 team 조인 없이 member.team_id 를 읽는다
+     */
+    Page<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
+
+    /**
+     * 벌크 연산 - member_id 구간 단위로 나눠서 실행하고, 변경된 회원만 영속성 컨텍스트에서 내린다
+     */
+    MemberBulkResult bulkAddAge(MemberSearchCondition condition, int amount);
+    MemberBulkResult bulkUpdateUsername(MemberSearchCondition condition, String username);
+    MemberBulkResult bulkDelete(MemberSearchCondition condition);
 }
@@ -1,27 +1,54 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberTeamDTO;
 
 import org.springframework.data.domain.Pageable;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountQueryOptimizer;
+import study.querydsl.repository.support.EntityWriteListener;
+import study.querydsl.repository.support.PageExecutor;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
 
-import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.MemberSearchQueries.searchPredicates;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl
@@ -36,6 +63,16 @@ public class MemberRepositoryImpl
 //    }
 
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueries searchQueries;
+    private final MemberCountCache countCache;
+    private final MemberResultCache resultCache;
+    private final PageExecutor pageExecutor;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityWriteListener writeListener;
+
+    @Value("${querydsl.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
 
     @Override
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
@@ -58,55 +95,38 @@ public class MemberRepositoryImpl
 //                )).fetch();
 
 
-        return queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                )
-                .fetch();
+        return resultCache.get("search", condition, Pageable.unpaged(),
+                () -> searchQueries.fetch(condition));
     }
 
     @Override
     public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDTO> results = queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
+        return resultCache.get("searchPageSimple", condition, pageable, () -> {
+            QueryResults<MemberTeamDTO> results = queryFactory
+                    .select(new QMemberTeamDTO(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(searchPredicates(condition))
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetchResults();
 
-        List<MemberTeamDTO> contents = results.getResults();
-        long total = results.getTotal();
+            List<MemberTeamDTO> contents = results.getResults();
+            long total = results.getTotal();
 
-        return new PageImpl<>(contents, pageable, total);
+            return new PageImpl<>(contents, pageable, total);
+        });
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDTO> searchPageSimple2(MemberSearchCondition condition, Pageable pageable) {
 
         /**
@@ -138,13 +158,9 @@ public class MemberRepositoryImpl
 //        long total = results.getTotal();
 //
 //        return new PageImpl<>(contents, pageable, total);
-        return null;
-
-    }
 
-    @Override
-    public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDTO> contents = queryFactory
+        // fetchResults 대신 컨텐츠 쿼리 + 그 쿼리에서 만든 카운트 쿼리 (필요할 때만 실행)
+        JPAQuery<MemberTeamDTO> contentQuery = queryFactory
                 .select(new QMemberTeamDTO(
                         member.id.as("memberId"),
                         member.username,
@@ -154,50 +170,267 @@ public class MemberRepositoryImpl
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                )
+                .where(searchPredicates(condition));
+
+        // 카운트 쿼리는 조인과 where 만 가져가므로 offset/limit 을 그대로 걸어도 된다
+        List<MemberTeamDTO> contents = contentQuery
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        /**
-         * 카운터 쿼리 최적화
-         */
-        JPAQuery<Member> countQuery = queryFactory.selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                );
-
+        return PageableExecutionUtils.getPage(contents, pageable,
+                () -> CountQueryOptimizer.countQuery(queryFactory, contentQuery).fetchCount());
+    }
 
+    @Override
+    public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
         /**
+         * 카운터 쿼리 최적화 - 팀명 조건이 없으면 team 조인도 빠진 카운트 쿼리
          * PageableExecutionUtils 사용 시 토탈 카운터가 필요없으면 쿼리 실행을 안함
+         * 필요할 때도 같은 조건의 count 가 캐시에 있으면 재사용
+         * (설정에 따라 카운트 쿼리는 컨텐츠 쿼리와 동시에 실행)
+         * 같은 조건 + 페이지 요청이 반복되면 결과 캐시에서 바로 응답
          */
-        return PageableExecutionUtils.getPage(contents, pageable, countQuery::fetchCount);
+        return resultCache.get("searchPageComplex", condition, pageable, () -> pageExecutor.getPage(
+                () -> searchQueries.fetch(condition, pageable.getOffset(), pageable.getPageSize()),
+                pageable,
+                () -> countCache.get(condition, () -> searchQueries.fetchCount(condition))));
 //        return new PageImpl<>(contents, pageable, total);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        List<MemberTeamDTO> rows = queryFactory
+                .select(new QMemberTeamDTO(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .where(cursorAfter(cursor))
+                .orderBy(cursorOrder(cursor))
+                .limit(size + 1) // 한 건 더 읽어서 다음 페이지 존재 여부 확인
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<MemberTeamDTO> contents = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext
+                ? MemberCursor.after(contents.get(contents.size() - 1), cursor.getSort()).encode()
+                : null;
+
+        return new MemberCursorPage(contents, nextCursor, hasNext);
+    }
+
+    /**
+     * (age, member_id) 또는 (member_id) 기준으로 마지막 키 이후만 조회
+     */
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getSort() == MemberCursor.Sort.AGE) {
+            return member.age.gt(cursor.getLastAge())
+                    .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastId())));
+        }
+        return member.id.gt(cursor.getLastId());
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+        if (cursor.getSort() == MemberCursor.Sort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable) {
+        // 팀명을 조회하거나 팀명으로 거르는 경우에만 team 조인
+        boolean joinTeam = fields.contains(MemberField.TEAM_NAME) || hasText(condition.getTeamName());
+        List<MemberField> selected = List.copyOf(fields);
+        Expression<?>[] projection = selected.stream()
+                .map(field -> fieldExpression(field, joinTeam))
+                .toArray(Expression<?>[]::new);
+
+        // 카운트는 고른 필드와 상관없으므로 searchPageComplex 와 같은 카운트(캐시)를 쓴다
+        return pageExecutor.getPage(
+                () -> toFieldMaps(selected, fieldsQuery(projection, joinTeam)
+                        .where(searchPredicates(condition))
+                        .orderBy(member.id.asc())
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch()),
+                pageable,
+                () -> countCache.get(condition, () -> searchQueries.fetchCount(condition)));
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(Expression<?>[] projection, boolean joinTeam) {
+        JPAQuery<Tuple> query = queryFactory
+                .select(projection)
+                .from(member);
+        if (joinTeam) {
+            query.leftJoin(member.team, team);
+        }
+        return query;
+    }
+
+    private static List<Map<String, Object>> toFieldMaps(List<MemberField> selected, List<Tuple> rows) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                values.put(selected.get(i).getFieldName(), row.get(i, Object.class));
+            }
+            result.add(values);
+        }
+        return result;
+    }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    /**
+     * team 조인이 없으면 teamId 는 member 테이블의 FK(team_id) 를 그대로 읽는다
+     */
+    private static Expression<?> fieldExpression(MemberField field, boolean joinTeam) {
+        return switch (field) {
+            case MEMBER_ID -> member.id;
+            case USERNAME -> member.username;
+            case AGE -> member.age;
+            case TEAM_ID -> joinTeam ? team.id : member.team.id;
+            case TEAM_NAME -> team.name;
+        };
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    @Override
+    public MemberBulkResult bulkAddAge(MemberSearchCondition condition, int amount) {
+        return executeInChunks(condition, ids -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(member.id.in(ids))
+                .execute());
     }
 
-    private BooleanExpression ageGoeEq(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    @Override
+    public MemberBulkResult bulkUpdateUsername(MemberSearchCondition condition, String username) {
+        return executeInChunks(condition, ids -> queryFactory
+                .update(member)
+                .set(member.username, username)
+                .where(member.id.in(ids))
+                .execute());
     }
 
-    private BooleanExpression ageLoeEq(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    @Override
+    public MemberBulkResult bulkDelete(MemberSearchCondition condition) {
+        return executeInChunks(condition, ids -> queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    /**
+     * 조건에 맞는 member_id 범위를 chunk-size 구간으로 나눠서
+     * 구간마다 대상 id 조회 -> id 로 벌크 연산 -> 해당 엔티티만 detach 를 한 트랜잭션으로 실행
+     * 다음 구간은 조건에 맞는 다음 id 부터 시작한다 (id 가 듬성듬성해도 빈 구간을 돌지 않는다)
+     *
+     * 바깥 트랜잭션이 없으면 구간마다 커밋되어 락과 undo 가 구간 크기로 제한되고,
+     * 있으면 바깥 트랜잭션에 참여한다 (em.clear() 대신 변경된 엔티티만 내리므로 호출한 쪽 엔티티는 그대로 사용 가능)
+     */
+    private MemberBulkResult executeInChunks(MemberSearchCondition condition, ToLongFunction<List<Long>> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush(); // 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 먼저 반영
+        }
+
+        NumberExpression<Long> minId = member.id.min();
+        NumberExpression<Long> maxId = member.id.max();
+        Tuple range = queryFactory
+                .select(minId, maxId)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .fetchOne();
+
+        List<MemberBulkResult.Chunk> chunks = new ArrayList<>();
+        if (range == null || range.get(minId) == null) {
+            return new MemberBulkResult(0, chunks);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long maxIdValue = range.get(maxId);
+        long total = 0;
+        try {
+            Long from = range.get(minId);
+            while (from != null && from <= maxIdValue) {
+                long fromId = from;
+                long toId = from + bulkChunkSize - 1;
+                long start = System.nanoTime();
+
+                Long rows = transaction.execute(status -> {
+                    List<Long> ids = queryFactory
+                            .select(member.id)
+                            .from(member)
+                            .leftJoin(member.team, team)
+                            .where(searchPredicates(condition))
+                            .where(member.id.between(fromId, toId))
+                            .fetch();
+                    if (ids.isEmpty()) {
+                        return 0L;
+                    }
+                    long affected = operation.applyAsLong(ids);
+                    detachMembers(ids);
+                    return affected;
+                });
+
+                if (rows != null && rows > 0) {
+                    chunks.add(new MemberBulkResult.Chunk(fromId, toId, rows, (System.nanoTime() - start) / 1_000_000));
+                    total += rows;
+                }
+                from = nextMemberId(condition, toId);
+            }
+        } finally {
+            // 벌크 연산은 하이버네이트 이벤트가 발생하지 않는다
+            // 뒤 구간이 실패해도 이미 커밋된 구간의 변경은 알린다
+            if (!chunks.isEmpty()) {
+                writeListener.publish(Member.class);
+            }
+        }
+
+        return new MemberBulkResult(total, chunks);
+    }
+
+    /**
+     * afterId 다음으로 조건에 맞는 member_id (id 가 듬성듬성하면 빈 구간을 건너뛴다)
+     */
+    private Long nextMemberId(MemberSearchCondition condition, long afterId) {
+        return queryFactory
+                .select(member.id.min())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .where(member.id.gt(afterId))
+                .fetchOne();
+    }
+
+    /**
+     * 영속성 컨텍스트에 올라와 있는 회원 중 변경된 것만 detach (다음 조회 때 DB 값으로 다시 로딩)
+     */
+    private void detachMembers(List<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getRuntimeMetamodels()
+                .getMappingMetamodel().getEntityDescriptor(Member.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+
+        for (Long id : ids) {
+            EntityKey key = session.generateEntityKey(id, persister);
+            Object managed = persistenceContext.getEntity(key);
+            if (managed == null) {
+                managed = persistenceContext.getProxy(key);
+            }
+            if (managed != null) {
+                em.detach(managed);
+            }
+        }
     }
 }
@@ -0,0 +1,268 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.QueryTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityWriteListener;
+import study.querydsl.repository.support.QueryDeadline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 결과 캐시 (조건 + Pageable 별 List / Page)
+ *
+ * - 캐시 미스일 때만 읽기 전용 트랜잭션을 시작하므로 히트는 커넥션 풀을 건드리지 않는다
+ * - Member, Team 이 변경되면 전부 비운다 (MemberCountCache 와 같은 이유)
+ * - 쓰기 트랜잭션 안에서는 사용하지 않는다
+ * - 크기는 결과 건수로 추정한 바이트(querydsl.result-cache.max-bytes)로 제한
+ *
+ * 캐시에는 결과의 복사본을 넣고, 꺼낼 때마다 다시 복사해서 준다 (MemberTeamDTO 가 @Data 라 받은 쪽에서 수정할 수 있다)
+ *
+ * 무효화는 세대(generation)로 구분한다. 무효화 전에 시작한 로드는 무효화 전 값을 읽었을 수 있으므로
+ * 끝나고 캐시에 남아 있어도 다음 조회에서 버리고 다시 읽는다 (invalidateAll 은 진행 중인 로드를 지우지 못한다)
+ * replica 라우팅을 쓰면 쓰기 직후(ReadYourWrites) 로드는 primary 에서 읽으므로 복제 지연된 값이 올라가지 않는다
+ *
+ * 같은 키를 동시에 찾으면 처음 요청한 스레드가 한 번만 읽고 나머지는 기다린다
+ * - 로드는 처음 요청의 마감 시간(QueryDeadline)으로 실행한다 (남은 시간, 연결 끊김 취소가 그대로 적용)
+ * - 처음 요청이 시간 초과/취소로 실패하면 로드는 캐시에서 빠지고, 기다리던 요청은 자기 마감 시간으로 다시 읽는다
+ * - 기다리는 요청은 각자 남은 시간만큼만 기다리고, 취소되면 바로 그만 기다린다
+ *
+ * 메트릭: cache.gets{cache=memberResult}, querydsl.result.cache.hit.ratio, querydsl.result.cache.bytes
+ */
+@Component
+public class MemberResultCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    // 기다리는 동안 취소됐는지 확인하는 간격
+    private static final long CANCEL_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final boolean enabled;
+    private final AsyncCache<Key, Entry> cache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberResultCache(EntityWriteListener writeListener,
+                             MeterRegistry meterRegistry,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${querydsl.result-cache.enabled:true}") boolean enabled,
+                             @Value("${querydsl.result-cache.ttl:5s}") Duration ttl,
+                             @Value("${querydsl.result-cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> estimateBytes(entry.value()))
+                .recordStats()
+                .buildAsync();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberResult");
+        Gauge.builder("querydsl.result.cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .register(meterRegistry);
+        Gauge.builder("querydsl.result.cache.bytes", cache, c -> c.synchronous().policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        writeListener.subscribe(type -> {
+            if (type == Member.class || type == Team.class) {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * operation 은 같은 조건이라도 결과 모양이 다른 메서드를 구분한다 (search, searchPageComplex ...)
+     * loader 는 캐시 미스일 때 읽기 전용 트랜잭션 안에서 실행된다
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String operation, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+        if (!enabled || inReadWriteTransaction()) {
+            return readOnlyTransaction.execute(status -> loader.get());
+        }
+
+        Key key = Key.of(operation, condition, pageable);
+        Entry entry = lookup(key, loader);
+        if (entry.generation() != generation.get()) {
+            // 무효화 전에 시작한 로드 - 버리고 지금 세대로 다시 읽는다
+            cache.asMap().computeIfPresent(key, (k, future) -> isStale(future) ? null : future);
+            entry = lookup(key, loader);
+        }
+        return (T) copy(entry.value());
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * 키의 로드가 없으면 현재 스레드에서 (현재 요청의 마감 시간으로) 읽고, 있으면 진행 중인(끝난) 로드를 기다린다
+     * 읽던 요청이 시간 초과/취소로 실패했으면 그 로드는 버리고 현재 요청이 다시 읽는다
+     */
+    private Entry lookup(Key key, Supplier<?> loader) {
+        while (true) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            CompletableFuture<Entry> future = cache.get(key, (k, executor) -> created);
+            if (future == created) {
+                try {
+                    Entry entry = load(loader);
+                    created.complete(entry);
+                    return entry;
+                } catch (RuntimeException | Error e) {
+                    created.completeExceptionally(e); // 실패한 로드는 캐시에서 빠진다
+                    throw e;
+                }
+            }
+            try {
+                return await(future);
+            } catch (ExecutionException e) {
+                if (!isTimeout(e.getCause())) {
+                    if (e.getCause() instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+                cache.asMap().remove(key, future);
+            }
+        }
+    }
+
+    private boolean isStale(CompletableFuture<Entry> future) {
+        return future.isDone() && !future.isCompletedExceptionally() && future.join().generation() != generation.get();
+    }
+
+    private Entry load(Supplier<?> loader) {
+        long started = generation.get();
+        Object value = readOnlyTransaction.execute(status -> loader.get());
+        return new Entry(copy(value), started);
+    }
+
+    /**
+     * 다른 요청의 마감 시간 때문에 실패한 로드 (현재 요청에는 아직 시간이 남아 있을 수 있다)
+     */
+    private static boolean isTimeout(Throwable failure) {
+        return failure instanceof QueryTimeoutException
+                || failure instanceof org.springframework.dao.QueryTimeoutException;
+    }
+
+    /**
+     * 현재 요청의 마감 시간까지만 기다린다 (로드 실패는 ExecutionException 으로)
+     */
+    private static Entry await(CompletableFuture<Entry> future) throws ExecutionException {
+        QueryDeadline deadline = QueryDeadline.current();
+        try {
+            if (future.isDone() || deadline == null) {
+                return future.get();
+            }
+            while (true) {
+                if (deadline.isCancelled()) {
+                    throw new QueryTimeoutException("request was cancelled");
+                }
+                long remainingNanos = deadline.remaining().toNanos();
+                if (remainingNanos <= 0) {
+                    throw new QueryTimeoutException("request deadline exceeded");
+                }
+                try {
+                    return future.get(Math.min(remainingNanos, CANCEL_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // 다시 확인
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for cached search", e);
+        }
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * 대략적인 힙 사용량 (DTO 객체 + 문자열)
+     */
+    private static int estimateBytes(Object value) {
+        List<?> rows = value instanceof Page<?> page ? page.getContent() : (List<?>) value;
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (Object row : rows) {
+            bytes += 16 + 4 * 8; // 객체 헤더 + 필드
+            if (row instanceof MemberTeamDTO dto) {
+                bytes += 2 * 16 + stringBytes(dto.getUsername()) + stringBytes(dto.getTeamName()); // Long 2개 + 문자열
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    /**
+     * List / Page 와 그 안의 MemberTeamDTO 까지 복사 (리스트는 수정 불가)
+     */
+    private static Object copy(Object value) {
+        if (value instanceof Page<?> page) {
+            return new PageImpl<>(copyRows(page.getContent()), page.getPageable(), page.getTotalElements());
+        }
+        return copyRows((List<?>) value);
+    }
+
+    private static List<Object> copyRows(List<?> rows) {
+        List<Object> copies = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            copies.add(row instanceof MemberTeamDTO dto
+                    ? new MemberTeamDTO(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName())
+                    : row);
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    /**
+     * generation: 로드를 시작할 때의 세대
+     */
+    private record Entry(Object value, long generation) {
+    }
+
+    private record Key(String operation, String username, String teamName, Integer ageGoe, Integer ageLoe,
+                       Pageable pageable) {
+
+        static Key of(String operation, MemberSearchCondition condition, Pageable pageable) {
+            return new Key(operation,
+                    hasText(condition.getUsername()) ? condition.getUsername() : null,
+                    hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe(),
+                    pageable);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.QueryMetrics;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 조건 모음
+ *
+ * MemberSearchCondition 은 어떤 필드가 비어있는지(shape)만 달라지므로 4개 필드 -> 16가지 JPQL 을 미리 만들어두고
+ * 실행 시점에는 파라미터 바인딩만 한다. (Querydsl 표현식 생성, JPQL 직렬화, 하이버네이트 쿼리 해석 반복 제거)
+ * 실행 메트릭은 이 클래스를 호출한 리포지토리 메서드 이름으로 QueryMetrics 에 기록
+ * JPAQueryFactory 를 거치지 않으므로 요청 마감 시간(QueryDeadline)도 여기서 직접 건다
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchQueries {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int SHAPES = 1 << 4;
+
+    private static final String[] CONTENT_QUERIES = new String[SHAPES];
+    private static final String[] COUNT_QUERIES = new String[SHAPES];
+
+    static {
+        for (int shape = 0; shape < SHAPES; shape++) {
+            // 팀명 조건이 있으면 팀 없는 회원은 어차피 걸러지므로 inner join
+            // (left join 이면 DB 가 조인 순서를 못 바꿔서 member 부터 풀스캔 -> inner join 이면 idx_team_name 부터 시작)
+            boolean teamFilter = (shape & TEAM_NAME) != 0;
+            CONTENT_QUERIES[shape] = "select new study.querydsl.dto.MemberTeamDTO(m.id, m.username, m.age, t.id, t.name)" +
+                    " from Member m" + (teamFilter ? " join m.team t" : " left join m.team t") + whereClause(shape);
+            // 팀명 조건이 없으면 카운트 쿼리에서는 team 조인이 필요 없다
+            COUNT_QUERIES[shape] = "select count(m) from Member m" +
+                    (teamFilter ? " join m.team t" : "") + whereClause(shape);
+        }
+    }
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final QueryMetrics queryMetrics;
+
+    /**
+     * 16가지 shape 를 미리 해석해서 하이버네이트 쿼리 플랜 캐시에 올려둔다
+     */
+    @PostConstruct
+    public void precompile() {
+        queryMetrics.ignoreCaller(MemberSearchQueries.class);
+        EntityManager warmup = emf.createEntityManager();
+        try {
+            for (int shape = 0; shape < SHAPES; shape++) {
+                warmup.createQuery(CONTENT_QUERIES[shape], MemberTeamDTO.class);
+                warmup.createQuery(COUNT_QUERIES[shape], Long.class);
+            }
+        } finally {
+            warmup.close();
+        }
+    }
+
+    public List<MemberTeamDTO> fetch(MemberSearchCondition condition) {
+        return fetch(content(condition));
+    }
+
+    public List<MemberTeamDTO> fetch(MemberSearchCondition condition, long offset, int limit) {
+        return fetch(content(condition)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit));
+    }
+
+    public long fetchCount(MemberSearchCondition condition) {
+        TypedQuery<Long> query = count(condition);
+        return queryMetrics.time(queryMetrics.callerMethod(), "count", query::getSingleResult);
+    }
+
+    private List<MemberTeamDTO> fetch(TypedQuery<MemberTeamDTO> query) {
+        String method = queryMetrics.callerMethod();
+        List<MemberTeamDTO> rows = queryMetrics.time(method, "fetch", query::getResultList);
+        queryMetrics.recordRows(method, rows.size());
+        return rows;
+    }
+
+    private TypedQuery<MemberTeamDTO> content(MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(QueryDeadline.applyTo(em.createQuery(CONTENT_QUERIES[shape], MemberTeamDTO.class), em), shape, condition);
+    }
+
+    private TypedQuery<Long> count(MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(QueryDeadline.applyTo(em.createQuery(COUNT_QUERIES[shape], Long.class), em), shape, condition);
+    }
+
+    /**
+     * Querydsl 쿼리에서 where(...) 에 그대로 넘기는 용도 (null 은 Querydsl 이 무시)
+     */
+    public static Predicate[] searchPredicates(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoeEq(condition.getAgeGoe()),
+                ageLoeEq(condition.getAgeLoe())
+        };
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression ageGoeEq(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoeEq(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private static String whereClause(int shape) {
+        StringBuilder where = new StringBuilder();
+        appendIf(where, shape, USERNAME, "m.username = :username");
+        appendIf(where, shape, TEAM_NAME, "t.name = :teamName");
+        appendIf(where, shape, AGE_GOE, "m.age >= :ageGoe");
+        appendIf(where, shape, AGE_LOE, "m.age <= :ageLoe");
+        return where.toString();
+    }
+
+    private static void appendIf(StringBuilder where, int shape, int field, String predicate) {
+        if ((shape & field) != 0) {
+            where.append(where.length() == 0 ? " where " : " and ").append(predicate);
+        }
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, int shape, MemberSearchCondition condition) {
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+}
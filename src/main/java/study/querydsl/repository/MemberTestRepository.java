@@ -1,12 +1,12 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
@@ -14,18 +14,24 @@ import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchQueries.searchPredicates;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberTestRepository
 //        extends QuerydslRepositorySupport
         extends Querydsl4RepositorySupport
 {
 
-    public MemberTestRepository() {
+    private final MemberSearchQueries searchQueries;
+    private final MemberCountCache countCache;
+
+    public MemberTestRepository(MemberSearchQueries searchQueries, MemberCountCache countCache) {
         super(Member.class);
+        this.searchQueries = searchQueries;
+        this.countCache = countCache;
     }
 
     public List<Member> basicSelect() {
@@ -42,16 +48,11 @@ public class MemberTestRepository
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable){
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                );
+                .where(searchPredicates(condition));
 
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
-        return PageableExecutionUtils.getPage(content,pageable,query::fetchCount);
+        return PageableExecutionUtils.getPage(content,pageable,() -> countQueryOf(query).fetchCount());
 
     }
 
@@ -60,12 +61,7 @@ public class MemberTestRepository
         return applyPagination(pageable, query ->
                 query.selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoeEq(condition.getAgeGoe()),
-                                ageLoeEq(condition.getAgeLoe())
-                        )
+                        .where(searchPredicates(condition))
         );
 
     }
@@ -74,46 +70,12 @@ public class MemberTestRepository
         return applyPagination(pageable, contentQuery ->
                 contentQuery.selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoeEq(condition.getAgeGoe()),
-                                ageLoeEq(condition.getAgeLoe())
-                        ),
-                // total count 쿼리
-                countQuery -> countQuery
-                        .select(member.id)
-                        .from(member)
-                        .leftJoin(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoeEq(condition.getAgeGoe()),
-                                ageLoeEq(condition.getAgeLoe())
-                        )
+                        .where(searchPredicates(condition)),
+                // total count 쿼리 - 미리 만들어둔 shape 별 카운트 쿼리 + 캐시
+                () -> countCache.get(condition, () -> searchQueries.fetchCount(condition))
         );
 
     }
 
 
-
-
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoeEq(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoeEq(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-
 }
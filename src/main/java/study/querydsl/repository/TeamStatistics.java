@@ -0,0 +1,435 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityWriteListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 나이 집계 (count, sum, avg, max, min) 를 메모리에 유지
+ *
+ * - 회원 insert/update(팀 이동, 나이 변경)/delete 는 하이버네이트 이벤트로 받아서 커밋 후에 증분 반영
+ * - max/min 은 삭제도 반영해야 하므로 팀별 나이 히스토그램을 둔다 (나이 종류 수만큼만 메모리 사용)
+ * - 벌크 연산 후, 이전 상태를 알 수 없는 update 후, 기동 시에는 DB 에서 다시 계산 (rebuild)
+ *
+ * 커밋과 afterCompletion 사이에 rebuild 가 끼면 그 트랜잭션의 변경은 스냅샷에 이미 들어 있을 수 있다
+ * - 트랜잭션은 변경(flush) 때마다 순번을 받고, rebuild 는 집계 쿼리가 끝난 뒤의 순번을 기록한다
+ * - 순번이 기록보다 크면 커밋이 쿼리 뒤라서 증분 반영, 아니면 포함 여부를 모르므로 stale 로 표시
+ * - 집계 쿼리 중에 반영된 증분은 새 스냅샷으로 바꿀 때 버려지므로 마찬가지로 stale
+ *
+ * stale 이면 백그라운드 스레드 하나가 모아서 다시 계산한다 (rebuild-interval 에 한 번 이하)
+ * 커밋한 요청 스레드는 afterCompletion 에서 아직 커넥션을 쥐고 있으므로 거기서 DB 를 읽지 않고,
+ * 집계 쿼리 동안 락을 잡지 않아 커밋 스레드가 커넥션을 쥔 채 기다리지 않는다
+ *
+ * 조회는 팀 수에 비례 (회원을 다시 스캔하지 않는다)
+ */
+@Slf4j
+@Component
+public class TeamStatistics implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        DisposableBean {
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final EntityWriteListener writeListener;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration rebuildInterval;
+    private final ThreadPoolTaskExecutor rebuildExecutor;
+
+    /**
+     * 증분 반영 대신 다시 계산하라는 표시
+     */
+    private static final Consumer<Map<Long, TeamAggregate>> REBUILD = stats -> {
+    };
+
+    /**
+     * teamId -> 집계 (this 로 동기화)
+     */
+    private Map<Long, TeamAggregate> teams = new HashMap<>();
+
+    /**
+     * 변경(flush) 마다 하나씩 증가
+     */
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    /**
+     * 마지막 rebuild 의 집계 쿼리가 끝났을 때의 writeSequence (this 로 동기화)
+     * 이하 순번의 트랜잭션은 스냅샷에 들어 있을 수 있다
+     */
+    private long rebuiltThrough;
+
+    /**
+     * 반영한 증분 트랜잭션 수 (this 로 동기화). 집계 쿼리 중에 바뀌었으면 그 증분은 새 스냅샷에 없을 수 있다
+     */
+    private long appliedChanges;
+
+    // rebuild 끼리만 순서대로 (커밋 스레드는 잡지 않는다)
+    private final Object rebuildLock = new Object();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong rebuildRequests = new AtomicLong();
+    private volatile boolean stale;
+    private volatile long lastRebuildNanos = System.nanoTime();
+
+    public TeamStatistics(EntityManagerFactory emf,
+                          JPAQueryFactory queryFactory,
+                          EntityWriteListener writeListener,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${querydsl.team-statistics.rebuild-interval:1s}") Duration rebuildInterval) {
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.writeListener = writeListener;
+        this.rebuildInterval = rebuildInterval;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.rebuildExecutor = new ThreadPoolTaskExecutor();
+        this.rebuildExecutor.setThreadNamePrefix("team-statistics-");
+        this.rebuildExecutor.setCorePoolSize(1);
+        this.rebuildExecutor.setMaxPoolSize(1);
+        this.rebuildExecutor.initialize();
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+
+        writeListener.subscribeBulk(type -> {
+            if (type == Member.class || type == Team.class) {
+                scheduleRebuild();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdown();
+    }
+
+    /**
+     * 팀명 순
+     */
+    public synchronized List<TeamStatsDTO> findAll() {
+        List<TeamStatsDTO> result = new ArrayList<>(teams.size());
+        teams.forEach((teamId, aggregate) -> result.add(aggregate.toDTO(teamId)));
+        result.sort(Comparator.comparing(TeamStatsDTO::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * 반영하지 못한 변경이 있어 다시 계산을 기다리는 중 (findAll 이 DB 와 다를 수 있다)
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * DB 에서 (팀, 나이) 별 건수를 다시 읽어서 통째로 바꾼다
+     * 쿼리 중에 반영된 증분이나 다시 계산 요청이 있었으면 stale 로 두고 한 번 더 예약한다
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long requests = rebuildRequests.get();
+            long applied;
+            synchronized (this) {
+                applied = appliedChanges;
+            }
+
+            List<Tuple> rows = readOnlyTransaction.execute(status -> queryFactory
+                    .select(team.id, team.name, member.age, member.count())
+                    .from(team)
+                    .leftJoin(team.members, member)
+                    .groupBy(team.id, team.name, member.age)
+                    .fetch());
+            long through = writeSequence.get();
+
+            Map<Long, TeamAggregate> rebuilt = new HashMap<>();
+            for (Tuple row : rows) {
+                TeamAggregate aggregate = aggregate(rebuilt, row.get(team.id), row.get(team.name));
+                Integer age = row.get(member.age);
+                if (age != null) {
+                    aggregate.add(age, row.get(member.count()));
+                }
+            }
+
+            boolean missed;
+            synchronized (this) {
+                teams = rebuilt;
+                rebuiltThrough = through;
+                missed = appliedChanges != applied || rebuildRequests.get() != requests;
+                stale = missed;
+            }
+            lastRebuildNanos = System.nanoTime();
+            log.debug("team statistics rebuilt: {} teams", rebuilt.size());
+            if (missed) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    /**
+     * 다시 계산을 예약한다. 이미 예약돼 있으면 그 rebuild 에 합친다
+     */
+    private void scheduleRebuild() {
+        rebuildRequests.incrementAndGet();
+        stale = true;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::runScheduledRebuild);
+        }
+    }
+
+    private void runScheduledRebuild() {
+        try {
+            long waitNanos = lastRebuildNanos + rebuildInterval.toNanos() - System.nanoTime();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rebuildScheduled.set(false);
+            return;
+        }
+        // 이 뒤에 들어온 요청은 다음 rebuild 로
+        rebuildScheduled.set(false);
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("team statistics rebuild failed, retrying in {}", rebuildInterval, e);
+            lastRebuildNanos = System.nanoTime();
+            scheduleRebuild();
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getState();
+        if (entity instanceof Member) {
+            Team memberTeam = (Team) state[propertyIndex(persister, "team")];
+            int age = (int) state[propertyIndex(persister, "age")];
+            if (memberTeam != null) {
+                Long teamId = memberTeam.getId();
+                String teamName = teamName(memberTeam);
+                afterCommit(stats -> aggregate(stats, teamId, teamName).add(age, 1));
+            }
+        } else if (entity instanceof Team) {
+            Long teamId = (Long) event.getId();
+            String teamName = (String) state[propertyIndex(persister, "name")];
+            afterCommit(stats -> aggregate(stats, teamId, teamName));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] oldState = event.getOldState();
+        Object[] state = event.getState();
+        if (entity instanceof Member) {
+            if (oldState == null) {
+                // detached 엔티티를 바로 update 하면 이전 값을 모른다
+                afterCommit(REBUILD);
+                return;
+            }
+            int teamIndex = propertyIndex(persister, "team");
+            int ageIndex = propertyIndex(persister, "age");
+            Team oldTeam = (Team) oldState[teamIndex];
+            Team newTeam = (Team) state[teamIndex];
+            int oldAge = (int) oldState[ageIndex];
+            int newAge = (int) state[ageIndex];
+            Long oldTeamId = oldTeam == null ? null : oldTeam.getId();
+            Long newTeamId = newTeam == null ? null : newTeam.getId();
+            String newTeamName = newTeam == null ? null : teamName(newTeam);
+            afterCommit(stats -> {
+                if (oldTeamId != null) {
+                    aggregate(stats, oldTeamId, null).remove(oldAge);
+                }
+                if (newTeamId != null) {
+                    aggregate(stats, newTeamId, newTeamName).add(newAge, 1);
+                }
+            });
+        } else if (entity instanceof Team) {
+            Long teamId = (Long) event.getId();
+            String teamName = (String) state[propertyIndex(persister, "name")];
+            afterCommit(stats -> aggregate(stats, teamId, null).name = teamName);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getDeletedState();
+        if (entity instanceof Member) {
+            Team memberTeam = (Team) state[propertyIndex(persister, "team")];
+            int age = (int) state[propertyIndex(persister, "age")];
+            if (memberTeam != null) {
+                Long teamId = memberTeam.getId();
+                afterCommit(stats -> aggregate(stats, teamId, null).remove(age));
+            }
+        } else if (entity instanceof Team) {
+            Long teamId = (Long) event.getId();
+            afterCommit(stats -> stats.remove(teamId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 롤백되면 반영하지 않도록 커밋 후에 적용 (트랜잭션 밖이면 바로)
+     */
+    private void afterCommit(Consumer<Map<Long, TeamAggregate>> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges pending = pendingChanges();
+            // 하이버네이트 이벤트는 flush 때(커밋 전) 온다. 마지막 flush 의 순번을 남겨 애매한 구간을 줄인다
+            pending.sequence = writeSequence.incrementAndGet();
+            pending.changes.add(change);
+        } else {
+            PendingChanges pending = new PendingChanges();
+            pending.sequence = writeSequence.incrementAndGet();
+            pending.changes.add(change);
+            apply(pending);
+        }
+    }
+
+    /**
+     * rebuild 스냅샷에 이미 들어 있을 수 있는 트랜잭션은 증분을 버리고 다시 계산을 예약 (두 번 반영 방지)
+     * 예약된 쿼리는 이 트랜잭션의 커밋 뒤에 시작하므로 변경이 한 번만 들어간다
+     * afterCompletion 에서 불리므로 DB 를 읽지 않는다
+     */
+    private void apply(PendingChanges pending) {
+        synchronized (this) {
+            if (!pending.changes.contains(REBUILD) && pending.sequence > rebuiltThrough) {
+                pending.changes.forEach(change -> change.accept(teams));
+                appliedChanges++;
+                return;
+            }
+        }
+        scheduleRebuild();
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingChanges changes = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatistics.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(changes);
+                    }
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+
+    private static TeamAggregate aggregate(Map<Long, TeamAggregate> stats, Long teamId, String teamName) {
+        TeamAggregate aggregate = stats.computeIfAbsent(teamId, id -> new TeamAggregate());
+        if (teamName != null) {
+            aggregate.name = teamName;
+        }
+        return aggregate;
+    }
+
+    /**
+     * 프록시를 초기화하면서까지 이름을 읽지 않는다 (모르면 기존 이름 유지)
+     */
+    private static String teamName(Team memberTeam) {
+        return Hibernate.isInitialized(memberTeam) ? memberTeam.getName() : null;
+    }
+
+    private static class PendingChanges {
+
+        // 마지막 변경의 writeSequence
+        private long sequence;
+        private final List<Consumer<Map<Long, TeamAggregate>>> changes = new ArrayList<>();
+    }
+
+    private static class TeamAggregate {
+
+        private String name;
+        private long count;
+        private long sum;
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        void add(int age, long members) {
+            count += members;
+            sum += age * members;
+            ages.merge(age, members, Long::sum);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            ages.computeIfPresent(age, (key, members) -> members == 1 ? null : members - 1);
+        }
+
+        TeamStatsDTO toDTO(Long teamId) {
+            return new TeamStatsDTO(teamId, name, count, sum,
+                    count == 0 ? 0 : (double) sum / count,
+                    ages.isEmpty() ? null : ages.lastKey(),
+                    ages.isEmpty() ? null : ages.firstKey());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리의 메타데이터로 가벼운 카운트 쿼리를 만든다 (applyPagination2 의 카운트 쿼리를 직접 안 써도 되도록)
+ *
+ * - order by, projection, offset/limit 제거
+ * - fetch join 은 일반 join 으로
+ * - where 나 다른 조인에서 쓰지 않는 to-one left join 제거 (건수가 변하지 않는다)
+ *
+ * group by / having / distinct 가 있으면 건수가 달라질 수 있으므로 원래 쿼리를 그대로 돌려준다
+ */
+public final class CountQueryOptimizer {
+
+    private CountQueryOptimizer() {
+    }
+
+    public static JPAQuery<?> countQuery(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        QueryMetadata content = contentQuery.getMetadata();
+        if (!content.getGroupBy().isEmpty() || content.getHaving() != null || content.isDistinct()) {
+            return contentQuery;
+        }
+
+        // 뒤에서부터 보면서 참조되지 않는 left join 을 뺀다 (조인은 앞쪽 별칭만 참조할 수 있다)
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(content.getWhere(), referenced);
+        Deque<JoinExpression> joins = new ArrayDeque<>();
+        for (int i = content.getJoins().size() - 1; i >= 0; i--) {
+            JoinExpression join = content.getJoins().get(i);
+            if (isRemovable(join) && !referenced.contains(alias(join))) {
+                continue;
+            }
+            joins.addFirst(join);
+            collectRoots(joinPath(join), referenced);
+            collectRoots(join.getCondition(), referenced);
+        }
+
+        JPAQuery<?> countQuery = queryFactory.query();
+        QueryMetadata count = countQuery.getMetadata();
+        for (JoinExpression join : joins) {
+            count.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                count.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    count.addJoinFlag(flag);
+                }
+            }
+        }
+        if (content.getWhere() != null) {
+            count.addWhere(content.getWhere());
+        }
+        copyParams(content, count);
+        return countQuery;
+    }
+
+    /**
+     * 연관관계를 따라가는 to-one left join 만 뺄 수 있다
+     * (to-many 는 행이 늘어나고, 엔티티 직접 조인은 on 조건에 따라 행이 늘어날 수 있다)
+     */
+    private static boolean isRemovable(JoinExpression join) {
+        if (join.getType() != JoinType.LEFTJOIN) {
+            return false;
+        }
+        Expression<?> path = joinPath(join);
+        return path instanceof Path<?> association
+                && association.getMetadata().getParent() != null
+                && !(association instanceof CollectionExpression<?, ?>);
+    }
+
+    /**
+     * leftJoin(member.team, team) -> member.team
+     */
+    private static Expression<?> joinPath(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return operation.getArg(0);
+        }
+        return target;
+    }
+
+    /**
+     * leftJoin(member.team, team) -> team
+     */
+    private static Expression<?> alias(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return operation.getArg(1);
+        }
+        return target;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyParams(QueryMetadata from, QueryMetadata to) {
+        for (Map.Entry<ParamExpression<?>, Object> param : from.getParams().entrySet()) {
+            to.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    /**
+     * 표현식이 참조하는 경로의 루트(별칭)를 모은다
+     */
+    private enum RootCollector implements Visitor<Void, Set<Expression<?>>> {
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            collectRoots(metadata.getProjection(), roots);
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            metadata.getJoins().forEach(join -> {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            });
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression<?> argExpression) {
+                    collectRoots(argExpression, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
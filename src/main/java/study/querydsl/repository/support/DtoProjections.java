@@ -0,0 +1,254 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 리플렉션 없이 DTO 를 만드는 Projections.bean / Projections.constructor 대체
+ *
+ * DTO 클래스 + 프로퍼티(또는 생성자 파라미터 타입) 조합마다 한 번만 LambdaMetafactory 로 생성자/setter 호출 클래스를 만들어 캐시하고
+ * 행마다 일반 메서드 호출로 DTO 를 채운다 (Projections.bean/fields/constructor 는 행마다 리플렉션 호출)
+ * <pre>
+ * select(DtoProjections.bean(MemberDTO.class, member.username, member.age))
+ * select(DtoProjections.constructor(UserDTO.class, member.username, member.age))
+ * </pre>
+ */
+public final class DtoProjections {
+
+    private static final Map<Signature, Instantiator<?>> INSTANTIATORS = new ConcurrentHashMap<>();
+
+    private DtoProjections() {
+    }
+
+    /**
+     * 기본 생성자 + setter (프로퍼티 이름은 경로 이름 또는 as 별칭). null 값은 setter 를 호출하지 않는다
+     */
+    public static <T> Projection<T> bean(Class<T> type, Expression<?>... exprs) {
+        List<String> properties = Arrays.stream(exprs).map(DtoProjections::propertyName).toList();
+        return new Projection<>(type, exprs, instantiator(new Signature(type, true, properties),
+                () -> beanInstantiator(type, properties)));
+    }
+
+    /**
+     * 표현식 타입과 파라미터 타입이 맞는 생성자
+     */
+    public static <T> Projection<T> constructor(Class<T> type, Expression<?>... exprs) {
+        List<Class<?>> argTypes = Arrays.stream(exprs).<Class<?>>map(Expression::getType).toList();
+        return new Projection<>(type, exprs, instantiator(new Signature(type, false, argTypes),
+                () -> constructorInstantiator(type, argTypes)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Instantiator<T> instantiator(Signature signature, Supplier<Instantiator<T>> factory) {
+        return (Instantiator<T>) INSTANTIATORS.computeIfAbsent(signature, key -> factory.get());
+    }
+
+    private static <T> Instantiator<T> beanInstantiator(Class<T> type, List<String> properties) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            Supplier<?> constructor = lambda(lookup, Supplier.class, "get",
+                    lookup.findConstructor(type, MethodType.methodType(void.class)), MethodType.methodType(type));
+
+            @SuppressWarnings("unchecked")
+            BiConsumer<Object, Object>[] setters = new BiConsumer[properties.size()];
+            for (int i = 0; i < setters.length; i++) {
+                Method setter = findSetter(type, properties.get(i));
+                setters[i] = lambda(lookup, BiConsumer.class, "accept", lookup.unreflect(setter),
+                        MethodType.methodType(void.class, type, wrap(setter.getParameterTypes()[0])));
+            }
+
+            return args -> {
+                T dto = type.cast(constructor.get());
+                for (int i = 0; i < setters.length; i++) {
+                    if (args[i] != null) {
+                        setters[i].accept(dto, args[i]);
+                    }
+                }
+                return dto;
+            };
+        } catch (Throwable e) {
+            throw new ExpressionException("cannot create setter projection for " + type.getName() + " " + properties, e);
+        }
+    }
+
+    private static <T> Instantiator<T> constructorInstantiator(Class<T> type, List<Class<?>> argTypes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            Constructor<?> constructor = findConstructor(type, argTypes);
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            MethodType instantiated = MethodType.methodType(type, Arrays.stream(constructor.getParameterTypes())
+                    .map(DtoProjections::wrap).toArray(Class<?>[]::new));
+
+            return switch (argTypes.size()) {
+                case 1 -> {
+                    Function<Object, Object> f = lambda(lookup, Function.class, "apply", handle, instantiated);
+                    yield args -> type.cast(f.apply(args[0]));
+                }
+                case 2 -> {
+                    BiFunction<Object, Object, Object> f = lambda(lookup, BiFunction.class, "apply", handle, instantiated);
+                    yield args -> type.cast(f.apply(args[0], args[1]));
+                }
+                case 3 -> {
+                    Function3 f = lambda(lookup, Function3.class, "apply", handle, instantiated);
+                    yield args -> type.cast(f.apply(args[0], args[1], args[2]));
+                }
+                case 4 -> {
+                    Function4 f = lambda(lookup, Function4.class, "apply", handle, instantiated);
+                    yield args -> type.cast(f.apply(args[0], args[1], args[2], args[3]));
+                }
+                case 5 -> {
+                    Function5 f = lambda(lookup, Function5.class, "apply", handle, instantiated);
+                    yield args -> type.cast(f.apply(args[0], args[1], args[2], args[3], args[4]));
+                }
+                default -> {
+                    // 인자가 많으면 MethodHandle 을 배열로 펼쳐서 호출
+                    MethodHandle spread = handle.asSpreader(Object[].class, argTypes.size())
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                    yield args -> {
+                        try {
+                            return type.cast(spread.invokeExact(args));
+                        } catch (Throwable e) {
+                            throw new ExpressionException(e.getMessage(), e);
+                        }
+                    };
+                }
+            };
+        } catch (Throwable e) {
+            throw new ExpressionException("cannot create constructor projection for " + type.getName() + " " + argTypes, e);
+        }
+    }
+
+    /**
+     * implementation 을 functionalInterface 구현체로 만든다 (instantiated: 박싱된 실제 타입)
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> F lambda(MethodHandles.Lookup lookup, Class<? super F> functionalInterface, String methodName,
+                                MethodHandle implementation, MethodType instantiated) throws Throwable {
+        MethodType erased = instantiated.erase();
+        CallSite site = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(functionalInterface),
+                erased, implementation, instantiated);
+        return (F) site.getTarget().invoke();
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        throw new ExpressionException("no setter " + name + " in " + type.getName());
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, List<Class<?>> argTypes) {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            Class<?>[] parameters = constructor.getParameterTypes();
+            if (parameters.length != argTypes.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameters.length && matches; i++) {
+                matches = wrap(parameters[i]).isAssignableFrom(wrap(argTypes.get(i)));
+            }
+            if (matches) {
+                return constructor;
+            }
+        }
+        throw new ExpressionException("no constructor " + argTypes + " in " + type.getName());
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path<?> path) {
+            return path.getMetadata().getName();
+        }
+        if (expr instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return ((Path<?>) operation.getArg(1)).getMetadata().getName();
+        }
+        throw new ExpressionException("bean projection needs a path or an alias: " + expr);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @FunctionalInterface
+    public interface Function3 {
+        Object apply(Object a, Object b, Object c);
+    }
+
+    @FunctionalInterface
+    public interface Function4 {
+        Object apply(Object a, Object b, Object c, Object d);
+    }
+
+    @FunctionalInterface
+    public interface Function5 {
+        Object apply(Object a, Object b, Object c, Object d, Object e);
+    }
+
+    @FunctionalInterface
+    private interface Instantiator<T> {
+        T newInstance(Object[] args);
+    }
+
+    private record Signature(Class<?> type, boolean bean, List<?> parts) {
+    }
+
+    /**
+     * Querydsl 에 넘기는 FactoryExpression (JPQL 에는 args 만 select 되고, 행마다 newInstance 로 DTO 생성)
+     */
+    public static final class Projection<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final transient Instantiator<T> instantiator;
+
+        private Projection(Class<? extends T> type, Expression<?>[] args, Instantiator<T> instantiator) {
+            super(type);
+            this.args = List.of(args);
+            this.instantiator = instantiator;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public T newInstance(Object... args) {
+            return instantiator.newInstance(args);
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj == this || (obj instanceof Projection<?> other
+                    && getType().equals(other.getType())
+                    && args.equals(other.args));
+        }
+    }
+}
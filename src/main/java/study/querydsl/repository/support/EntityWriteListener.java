@@ -0,0 +1,137 @@
+package study.querydsl.repository.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 엔티티 insert/update/delete 를 캐시 무효화 등에 알려주는 하이버네이트 이벤트 리스너
+ *
+ * 플러시 시점에 한 번, 커밋(롤백) 후에 한 번 더 알린다.
+ * 플러시와 커밋 사이에 다른 트랜잭션이 이전 값을 다시 캐시에 올리는 경우를 막기 위함
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityWriteListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final List<Consumer<Class<?>>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Class<?>>> bulkSubscribers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public void subscribe(Consumer<Class<?>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * 벌크 연산(publish)만 트랜잭션 완료 후에 받는다
+     * 엔티티 단위 변경은 하이버네이트 이벤트로 직접 받고, 벌크 연산 후에만 다시 계산하는 구독자용 (예: TeamStatistics)
+     */
+    public void subscribeBulk(Consumer<Class<?>> subscriber) {
+        bulkSubscribers.add(subscriber);
+    }
+
+    /**
+     * 벌크 연산처럼 하이버네이트 이벤트가 발생하지 않는 변경은 직접 알려준다
+     */
+    public void publish(Class<?> entityType) {
+        changed(entityType);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    notifyBulkSubscribers(entityType);
+                }
+            });
+        } else {
+            notifyBulkSubscribers(entityType);
+        }
+    }
+
+    private void changed(Class<?> entityType) {
+        notifySubscribers(entityType);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedInCurrentTransaction().add(entityType);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void notifySubscribers(Class<?> entityType) {
+        for (Consumer<Class<?>> subscriber : subscribers) {
+            subscriber.accept(entityType);
+        }
+    }
+
+    private void notifyBulkSubscribers(Class<?> entityType) {
+        for (Consumer<Class<?>> subscriber : bulkSubscribers) {
+            subscriber.accept(entityType);
+        }
+    }
+
+    /**
+     * 트랜잭션마다 변경된 타입을 모아뒀다가 완료 시점에 한 번만 알린다
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Class<?>> changedInCurrentTransaction() {
+        Set<Class<?>> changed = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, types);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityWriteListener.this);
+                    types.forEach(EntityWriteListener.this::notifySubscribers);
+                }
+            });
+            changed = types;
+        }
+        return changed;
+    }
+}
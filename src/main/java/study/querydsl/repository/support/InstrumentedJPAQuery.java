@@ -0,0 +1,63 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 실행 시간과 결과 건수를 QueryMetrics 에 기록하는 JPAQuery
+ * 요청 마감 시간(QueryDeadline)이 있으면 남은 시간을 query timeout 으로 건다
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics metrics;
+    private final String method;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics metrics, String method) {
+        super(em);
+        this.metrics = metrics;
+        this.method = method;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return QueryDeadline.applyTo(super.createQuery(modifiers, forCount), entityManager);
+    }
+
+    @Override
+    public List<T> fetch() {
+        List<T> rows = metrics.time(method, "fetch", super::fetch);
+        metrics.recordRows(method, rows.size());
+        return rows;
+    }
+
+    @Override
+    public T fetchOne() {
+        return metrics.time(method, "fetchOne", super::fetchOne);
+    }
+
+    @Override
+    public long fetchCount() {
+        return metrics.time(method, "count", super::fetchCount);
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        QueryResults<T> results = metrics.time(method, "fetchResults", super::fetchResults);
+        metrics.recordRows(method, results.getResults().size());
+        return results;
+    }
+
+    /**
+     * 스트림은 여는 데 걸린 시간(쿼리 실행 ~ 첫 fetch)만 기록
+     */
+    @Override
+    public Stream<T> stream() {
+        return metrics.time(method, "stream", super::stream);
+    }
+}
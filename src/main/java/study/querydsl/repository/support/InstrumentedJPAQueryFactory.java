@@ -0,0 +1,51 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 만들어지는 모든 쿼리에 메트릭을 붙이는 JPAQueryFactory
+ * select/selectFrom 등은 모두 query() 를 거치므로 query() 만 바꾸면 된다
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryMetrics metrics;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.em = em;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, metrics, metrics.callerMethod());
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        String method = metrics.callerMethod();
+        return new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                return metrics.time(method, "execute", super::execute);
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        String method = metrics.callerMethod();
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                return metrics.time(method, "execute", super::execute);
+            }
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 조회 실행기
+ *
+ * querydsl.page.concurrent-count=true 이면 카운트 쿼리를 별도 스레드에서
+ * 읽기 전용 트랜잭션(별도 EntityManager, 커넥션)으로 컨텐츠 쿼리와 동시에 실행한다 -> 응답 시간이 합이 아니라 max
+ * PageableExecutionUtils 가 카운트가 필요 없다고 판단하면 실행 중인 카운트 쿼리는 취소한다
+ *
+ * 요청 스레드가 커넥션을 잡은 채로 카운트가 커넥션을 하나 더 쓰므로, 동시 카운트는 count-permits
+ * (기본 커넥션 풀의 절반) 개로 제한한다. 자리가 없으면 기다리지 않고 요청 스레드에서 순차 실행
+ * (모든 요청이 두 번째 커넥션을 기다리며 풀을 다 잡고 있는 교착을 막는다. DbBulkhead 는 나머지를 쓴다)
+ *
+ * 카운트는 다른 트랜잭션에서 실행되므로 쓰기 트랜잭션 안이나 이 클라이언트가 방금 쓴 직후(ReadYourWrites)에는
+ * (자기 변경을 볼 수 있도록) 순차 실행한다
+ */
+@Component
+public class PageExecutor implements DisposableBean {
+
+    private final EntityManager em;
+    private final StatementRecorder statementRecorder;
+    private final ReadYourWrites readYourWrites;
+    private final boolean concurrentCount;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore countPermits;
+    private final ThreadPoolTaskExecutor countExecutor;
+
+    public PageExecutor(EntityManager em,
+                        PlatformTransactionManager transactionManager,
+                        StatementRecorder statementRecorder,
+                        ReadYourWrites readYourWrites,
+                        @Value("${querydsl.page.concurrent-count:false}") boolean concurrentCount,
+                        @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                        @Value("${querydsl.page.count-permits:0}") int countPermits) {
+        this.em = em;
+        this.statementRecorder = statementRecorder;
+        this.readYourWrites = readYourWrites;
+        this.concurrentCount = concurrentCount;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        int permits = countPermits > 0 ? countPermits : defaultCountPermits(poolSize);
+        this.countPermits = new Semaphore(permits);
+
+        // 동시에 실행되는 카운트는 permits 개를 넘지 않으므로 스레드도 그만큼만 (요청마다 스레드를 만들지 않는다)
+        this.countExecutor = new ThreadPoolTaskExecutor();
+        this.countExecutor.setThreadNamePrefix("page-count-");
+        this.countExecutor.setCorePoolSize(permits);
+        this.countExecutor.setMaxPoolSize(permits);
+        this.countExecutor.setQueueCapacity(permits);
+        this.countExecutor.setAllowCoreThreadTimeOut(true);
+        this.countExecutor.initialize();
+    }
+
+    /**
+     * 커넥션 풀의 절반 (동시 카운트를 켜면 나머지가 DbBulkhead 가 동시에 실행하는 요청 수)
+     */
+    public static int defaultCountPermits(int poolSize) {
+        return Math.max(1, poolSize / 2);
+    }
+
+    @Override
+    public void destroy() {
+        countExecutor.shutdown();
+    }
+
+    /**
+     * 쿼리는 반드시 supplier 안에서 만들어야 한다 (공유 EntityManager 는 쿼리를 만드는 스레드의 트랜잭션에 묶인다)
+     */
+    public <T> Page<T> getPage(Supplier<List<T>> content, Pageable pageable, LongSupplier totalCount) {
+        if (!concurrentCount || inReadWriteTransaction() || readYourWrites.readsPinnedToPrimary()
+                || !countPermits.tryAcquire()) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, totalCount);
+        }
+
+        CountTask countTask = new CountTask(totalCount);
+        Future<Long> count;
+        try {
+            count = countExecutor.submit(QueryDeadline.wrap(statementRecorder.wrap(countTask)));
+        } catch (TaskRejectedException e) {
+            countTask.releasePermit();
+            return PageableExecutionUtils.getPage(content.get(), pageable, totalCount);
+        }
+        try {
+            return PageableExecutionUtils.getPage(content.get(), pageable, () -> await(count));
+        } finally {
+            if (!count.isDone()) {
+                countTask.cancel();
+                // 시작도 못 하고 취소된 작업은 call() 이 실행되지 않으므로 자리를 여기서 돌려준다
+                if (count.cancel(true) && !countTask.started) {
+                    countTask.releasePermit();
+                }
+            }
+        }
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static long await(Future<Long> count) {
+        try {
+            return count.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for count query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private class CountTask implements Callable<Long> {
+
+        private final LongSupplier totalCount;
+        private final AtomicBoolean permitHeld = new AtomicBoolean(true);
+        private volatile boolean started;
+        private volatile Session session;
+
+        CountTask(LongSupplier totalCount) {
+            this.totalCount = totalCount;
+        }
+
+        @Override
+        public Long call() {
+            started = true;
+            try {
+                return readOnlyTransaction.execute(status -> {
+                    session = em.unwrap(Session.class);
+                    try {
+                        return totalCount.getAsLong();
+                    } finally {
+                        session = null;
+                    }
+                });
+            } finally {
+                releasePermit();
+            }
+        }
+
+        void releasePermit() {
+            if (permitHeld.compareAndSet(true, false)) {
+                countPermits.release();
+            }
+        }
+
+        /**
+         * 스레드 인터럽트만으로는 실행 중인 JDBC 문장이 멈추지 않으므로 Statement.cancel 까지 요청
+         */
+        void cancel() {
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (RuntimeException ignored) {
+                    // 그 사이 끝났으면 무시
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나의 쿼리 마감 시간
+ *
+ * 현재 스레드에 묶여 있으면 쿼리를 만들 때마다 남은 시간을 JDBC query timeout 으로 건다 (초 단위, 올림)
+ * - 이미 지났거나 취소됐으면 쿼리를 실행하지 않고 QueryTimeoutException
+ * - cancel() 하면 이 요청이 쓴 세션의 실행 중인 JDBC 문장을 취소 (클라이언트가 연결을 끊었을 때)
+ * 다른 스레드에서 실행되는 작업(DbBulkhead, PageExecutor)은 wrap 으로 같은 마감 시간을 이어받는다
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private QueryDeadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static QueryDeadline after(Duration budget) {
+        return new QueryDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static QueryDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드에 묶인 마감 시간이 있으면 query 에 남은 시간을 timeout 으로 건다
+     */
+    public static <Q extends Query> Q applyTo(Q query, EntityManager em) {
+        QueryDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.apply(query, em.unwrap(Session.class));
+        }
+        return query;
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        QueryDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = deadline.bind()) {
+                return task.get();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        QueryDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = deadline.bind()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * 현재 스레드의 마감 시간을 잠시 뗀다 (여러 요청이 같이 기다리는 작업을 한 요청의 마감 시간으로 실행하지 않도록)
+     */
+    public static Scope unbind() {
+        QueryDeadline previous = CURRENT.get();
+        CURRENT.remove();
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * 현재 스레드에 묶는다. 닫으면 이전 상태로 돌아간다
+     */
+    public Scope bind() {
+        QueryDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 이후 쿼리는 실행하지 않고, 지금 실행 중인 문장은 Statement.cancel 로 멈춘다
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Session session : sessions) {
+            try {
+                session.cancelQuery();
+            } catch (RuntimeException ignored) {
+                // 이미 끝났거나 닫힌 세션이면 무시
+            }
+        }
+    }
+
+    private void apply(Query query, Session session) {
+        if (cancelled) {
+            throw new QueryTimeoutException("request was cancelled");
+        }
+        long remainingNanos = expiresAtNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new QueryTimeoutException("request deadline exceeded");
+        }
+        sessions.add(session);
+        // JDBC 의 query timeout 은 초 단위라 올림 (0 이면 timeout 없음이 되므로 최소 1초)
+        long seconds = Math.max(1, (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        query.setHint(HibernateHints.HINT_TIMEOUT, (int) seconds);
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 리포지토리 메서드별 쿼리 메트릭
+ *
+ * - querydsl.query{method, operation}      : 실행 시간 (operation = fetch, fetchOne, count, fetchResults, stream, execute)
+ * - querydsl.query.rows{method}            : fetch 결과 건수 분포
+ *
+ * method 태그는 쿼리를 만든 리포지토리 메서드 (예: MemberRepositoryImpl.searchPageComplex)
+ * 리포지토리 메서드가 곧 쿼리 모양이므로 태그 수가 늘어나지 않는다
+ *
+ * 퍼센타일 히스토그램은 시계열이 많아서 querydsl.metrics.histogram=true 일 때만 내보낸다
+ */
+@Component
+public class QueryMetrics {
+
+    private static final String APPLICATION_PACKAGE = "study.querydsl.";
+    private static final String SUPPORT_PACKAGE = "study.querydsl.repository.support.";
+    // 쿼리 팩토리 -> (헬퍼) -> 리포지토리 메서드까지. 이보다 깊으면 unknown
+    private static final int MAX_CALLER_DEPTH = 32;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    // time() 으로 실행 중인 쿼리의 메서드 (실행 콜백에서 스택을 다시 뒤지지 않도록)
+    private static final ThreadLocal<String> EXECUTING_METHOD = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final boolean histogram;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Set<String> ignoredCallers = ConcurrentHashMap.newKeySet();
+
+    // 호출 위치(클래스 -> 메서드명)마다 태그를 한 번만 만든다
+    private final Map<Class<?>, Boolean> callerTypes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, String>> callerTags = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry meterRegistry,
+                        @Value("${querydsl.metrics.histogram:false}") boolean histogram) {
+        this.meterRegistry = meterRegistry;
+        this.histogram = histogram;
+    }
+
+    /**
+     * 쿼리를 대신 실행해주는 헬퍼 클래스는 호출한 메서드를 찾을 때 건너뛴다
+     */
+    public void ignoreCaller(Class<?> helperType) {
+        ignoredCallers.add(helperType.getName());
+        callerTypes.clear();
+    }
+
+    /**
+     * 콜 스택에서 가장 가까운 애플리케이션 메서드 (람다 안이면 람다를 감싼 메서드)
+     * 스택은 위에서 몇 프레임만 보고, 찾은 호출 위치의 태그는 캐시해서 다시 만들지 않는다
+     */
+    public String callerMethod() {
+        return STACK_WALKER.walk(frames -> frames
+                .limit(MAX_CALLER_DEPTH)
+                .filter(frame -> isCaller(frame.getDeclaringClass()))
+                .findFirst()
+                .map(frame -> callerTag(frame.getDeclaringClass(), frame.getMethodName()))
+                .orElse("unknown"));
+    }
+
+    public <T> T time(String method, String operation, Supplier<T> query) {
+        String previous = EXECUTING_METHOD.get();
+        EXECUTING_METHOD.set(method);
+        try {
+            return timer(method, operation).record(query);
+        } finally {
+            if (previous == null) {
+                EXECUTING_METHOD.remove();
+            } else {
+                EXECUTING_METHOD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 현재 스레드에서 time() 으로 실행 중인 쿼리의 메서드 (없으면 null)
+     * 카운트처럼 다른 스레드에서 실행돼도 그 스레드의 time() 이 묶는다
+     */
+    public String executingMethod() {
+        return EXECUTING_METHOD.get();
+    }
+
+    public void recordRows(String method, long rows) {
+        rowSummaries.computeIfAbsent(method, key -> DistributionSummary.builder("querydsl.query.rows")
+                        .tag("method", key)
+                        .publishPercentileHistogram(histogram)
+                        .register(meterRegistry))
+                .record(rows);
+    }
+
+    private Timer timer(String method, String operation) {
+        return timers.computeIfAbsent(method + "#" + operation, key -> Timer.builder("querydsl.query")
+                .tag("method", method)
+                .tag("operation", operation)
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry));
+    }
+
+    private boolean isCaller(Class<?> type) {
+        return callerTypes.computeIfAbsent(type, key -> {
+            String className = key.getName();
+            return className.startsWith(APPLICATION_PACKAGE)
+                    && !className.startsWith(SUPPORT_PACKAGE)
+                    && !ignoredCallers.contains(outerClassName(className));
+        });
+    }
+
+    private String callerTag(Class<?> type, String methodName) {
+        return callerTags.computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(methodName, key -> simpleClassName(type.getName()) + "." + enclosingMethodName(key));
+    }
+
+    private static String outerClassName(String className) {
+        int inner = className.indexOf('$');
+        return inner < 0 ? className : className.substring(0, inner);
+    }
+
+    private static String simpleClassName(String className) {
+        String outer = outerClassName(className);
+        return outer.substring(outer.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * lambda$searchPageComplex$0 -> searchPageComplex
+     */
+    private static String enclosingMethodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return end < 0 ? methodName : methodName.substring("lambda$".length(), end);
+        }
+        return methodName;
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 하이버네이트 Statistics 를 켜고, 쿼리 문자열마다 그 쿼리를 실행한 리포지토리 메서드를 같이 기록한다
+ *
+ * 하이버네이트 통계는 JPQL 문자열 단위라 어느 메서드의 쿼리인지 알 수 없어서
+ * 기본 StatisticsImpl 의 queryExecuted 에서 QueryMetrics.time() 이 실행 중인 메서드를 붙인다
+ * QueryMetrics 를 거치지 않은 쿼리(Spring Data 파생 쿼리 등)만 처음 볼 때 한 번 콜 스택에서 찾는다
+ * querydsl.hibernate-statistics.enabled=false 면 통계 수집 자체를 끈다
+ *
+ * 주의: buildStatistics 는 하이버네이트 내부 구현인 org.hibernate.stat.internal.StatisticsImpl 을 상속한다
+ * (StatisticsImplementor 를 전부 위임하기엔 메서드가 너무 많다) 하이버네이트를 올릴 때 queryExecuted 시그니처와
+ * 생성자가 그대로인지 확인해야 한다
+ */
+@Component
+public class QueryOriginStatistics implements StatisticsFactory, HibernatePropertiesCustomizer {
+
+    private final QueryMetrics queryMetrics;
+    private final boolean enabled;
+
+    private final Map<String, Set<String>> origins = new ConcurrentHashMap<>();
+
+    public QueryOriginStatistics(QueryMetrics queryMetrics,
+                                 @Value("${querydsl.hibernate-statistics.enabled:true}") boolean enabled) {
+        this.queryMetrics = queryMetrics;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, enabled);
+        hibernateProperties.put(AvailableSettings.STATS_BUILDER, this);
+    }
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new StatisticsImpl(sessionFactory) {
+            @Override
+            public void queryExecuted(String hql, int rows, long time) {
+                super.queryExecuted(hql, rows, time);
+                if (hql != null) {
+                    recordOrigin(hql);
+                }
+            }
+        };
+    }
+
+    /**
+     * 쿼리를 실행한 리포지토리 메서드 (같은 JPQL 을 여러 메서드가 쓰면 여러 개)
+     */
+    public Set<String> origins(String query) {
+        return origins.getOrDefault(query, Set.of());
+    }
+
+    public void clear() {
+        origins.clear();
+    }
+
+    private void recordOrigin(String query) {
+        String method = queryMetrics.executingMethod();
+        if (method == null) {
+            if (origins.containsKey(query)) {
+                return;
+            }
+            method = queryMetrics.callerMethod();
+        }
+        origins.computeIfAbsent(query, key -> ConcurrentHashMap.newKeySet()).add(method);
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
  *
@@ -33,6 +34,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private PageExecutor pageExecutor;
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
@@ -47,13 +49,24 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+    /**
+     * 메트릭이 붙은 애플리케이션 JPAQueryFactory 빈을 같이 사용
+     */
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+    @Autowired
+    public void setPageExecutor(PageExecutor pageExecutor) {
+        this.pageExecutor = pageExecutor;
     }
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(pageExecutor, "PageExecutor must not be null!");
     }
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
@@ -76,16 +89,29 @@ public abstract class Querydsl4RepositorySupport {
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                () -> countQueryOf(jpaQuery).fetchCount());
+    }
+    /**
+     * 컨텐츠 쿼리에서 order by, 불필요한 left join 등을 뺀 카운트 쿼리
+     */
+    protected JPAQuery<?> countQueryOf(JPAQuery<?> contentQuery) {
+        return CountQueryOptimizer.countQuery(getQueryFactory(), contentQuery);
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        return pageExecutor.getPage(
+                () -> getQuerydsl().applyPagination(pageable,
+                        contentQuery.apply(getQueryFactory())).fetch(),
+                pageable,
+                () -> countQuery.apply(getQueryFactory()).fetchCount());
+    }
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, LongSupplier totalCount) {
+        return pageExecutor.getPage(
+                () -> getQuerydsl().applyPagination(pageable,
+                        contentQuery.apply(getQueryFactory())).fetch(),
+                pageable,
+                totalCount);
     }
 }
\ No newline at end of file
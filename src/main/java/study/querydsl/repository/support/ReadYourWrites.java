@@ -0,0 +1,127 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 쓰기 직후 읽기를 primary 로 보내는 시간 (replica 복제 지연 동안 방금 쓴 값이 안 보이는 문제)
+ *
+ * 쓰기를 커밋한 클라이언트(Client)만 querydsl.replica.read-your-writes 동안 읽기를 primary 로 보낸다
+ * - 마지막 쓰기 시각은 응답 쿠키로 클라이언트에게 돌려주고 다음 요청에서 ReadYourWritesFilter 가 다시 묶으므로
+ *   다음 요청이 다른 노드, 다른 스레드로 가도 이어진다 (노드 사이라서 nanoTime 이 아니라 벽시계 millis)
+ * - 다른 스레드에서 실행되는 작업(DbBulkhead)은 wrap 으로 같은 클라이언트를 이어받는다
+ * 묶인 클라이언트가 없으면(배치, 요청 밖의 작업) 읽기는 그대로 replica
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Client> CURRENT = new ThreadLocal<>();
+
+    private final Duration window;
+
+    public ReadYourWrites(@Value("${querydsl.replica.read-your-writes:2s}") Duration window) {
+        this.window = window;
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    public static Client current() {
+        return CURRENT.get();
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Client client = CURRENT.get();
+        if (client == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = client.bind()) {
+                return task.get();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Client client = CURRENT.get();
+        if (client == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = client.bind()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * 현재 스레드의 클라이언트가 primary 에 쓰기를 커밋했다
+     */
+    public void committed() {
+        Client client = CURRENT.get();
+        if (client != null) {
+            client.written(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 현재 스레드의 클라이언트가 최근에 쓴 값이 있어서 읽기도 primary 로 가야 하는지
+     * (다른 스레드로 읽기를 넘기는 곳에서 확인용)
+     */
+    public boolean readsPinnedToPrimary() {
+        Client client = CURRENT.get();
+        return client != null && System.currentTimeMillis() - client.lastWriteMillis < window.toMillis();
+    }
+
+    /**
+     * 요청을 보낸 클라이언트 하나의 마지막 쓰기 시각 (epoch millis, 없으면 0)
+     */
+    public static final class Client {
+
+        private final LongConsumer onWrite;
+        private volatile long lastWriteMillis;
+
+        /**
+         * @param onWrite 이 클라이언트가 쓰기를 커밋할 때마다 커밋 시각으로 호출 (응답에 쿠키를 싣는 곳)
+         */
+        public Client(long lastWriteMillis, LongConsumer onWrite) {
+            this.lastWriteMillis = lastWriteMillis;
+            this.onWrite = onWrite;
+        }
+
+        public long lastWriteMillis() {
+            return lastWriteMillis;
+        }
+
+        private void written(long millis) {
+            lastWriteMillis = millis;
+            onWrite.accept(millis);
+        }
+
+        /**
+         * 현재 스레드에 묶는다. 닫으면 이전 상태로 돌아간다
+         */
+        public Scope bind() {
+            Client previous = CURRENT.get();
+            CURRENT.set(this);
+            return () -> {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            };
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
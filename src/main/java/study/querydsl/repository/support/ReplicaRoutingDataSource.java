@@ -0,0 +1,60 @@
+package study.querydsl.repository.support;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 읽기 전용 트랜잭션은 replica, 나머지(쓰기 트랜잭션, 트랜잭션 밖, 벌크 연산)는 primary 로 보낸다
+ *
+ * 쓰기 트랜잭션이 커밋되면 그 클라이언트의 읽기는 ReadYourWrites 동안 primary 로 보낸다 (복제 지연 동안 방금 쓴 값이 안 보이는 문제)
+ * 트랜잭션 시작 시점이 아니라 첫 SQL 시점에 커넥션을 골라야 readOnly 여부를 알 수 있으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 쓴다
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final Object writeMarkerKey = new Object();
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return readYourWrites.readsPinnedToPrimary() ? Route.PRIMARY : Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            markWriteOnCommit();
+        }
+        return Route.PRIMARY;
+    }
+
+    private void markWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writeMarkerKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeMarkerKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeMarkerKey);
+                if (status == STATUS_COMMITTED) {
+                    readYourWrites.committed();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.Joinable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 요청(테스트)당 SQL 실행 횟수 예산
+ *
+ * - querydsl.statements.budget            : 요청당 허용 SQL 수 (0 이면 검사 안함)
+ * - querydsl.statements.repeat-threshold  : 같은 SQL 이 이 횟수 이상이면 N+1 로 보고 원인 연관관계를 같이 알려준다
+ * - querydsl.statements.fail              : true 면 예산 초과 시 예외, false 면 경고 로그
+ *
+ * HTTP 요청(StatementBudgetFilter)은 응답이 나간 뒤에 검사하므로 fail 과 관계없이 경고 로그만 남긴다
+ * (예외를 던져도 클라이언트는 이미 200 을 받았다). 예외로 막는 건 테스트(StatementCountExtension)
+ */
+@Slf4j
+@Component
+public class StatementBudget {
+
+    private static final Pattern FROM_TABLE = Pattern.compile("\\bfrom\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final EntityManagerFactory emf;
+    private final int budget;
+    private final int repeatThreshold;
+    private final boolean fail;
+
+    /**
+     * 테이블명 -> 그 엔티티를 가리키는 연관관계 (예: team -> Member.team)
+     */
+    private final Map<String, List<String>> associationsByTable = new HashMap<>();
+
+    public StatementBudget(EntityManagerFactory emf,
+                           @Value("${querydsl.statements.budget:0}") int budget,
+                           @Value("${querydsl.statements.repeat-threshold:3}") int repeatThreshold,
+                           @Value("${querydsl.statements.fail:false}") boolean fail) {
+        this.emf = emf;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+        this.fail = fail;
+    }
+
+    @PostConstruct
+    public void mapAssociations() {
+        Map<Class<?>, String> tables = new HashMap<>();
+        emf.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().forEachEntityDescriptor(descriptor -> {
+            if (descriptor instanceof Joinable joinable) {
+                tables.put(descriptor.getMappedClass(), joinable.getTableName().toLowerCase(Locale.ROOT));
+            }
+        });
+
+        for (EntityType<?> owner : emf.getMetamodel().getEntities()) {
+            for (Attribute<?, ?> attribute : owner.getAttributes()) {
+                if (!attribute.isAssociation()) {
+                    continue;
+                }
+                Class<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+                        ? plural.getElementType().getJavaType()
+                        : attribute.getJavaType();
+                String table = tables.get(target);
+                if (table != null) {
+                    associationsByTable.computeIfAbsent(table, key -> new ArrayList<>())
+                            .add(owner.getName() + "." + attribute.getName());
+                }
+            }
+        }
+    }
+
+    public void check(String scope, StatementRecording recording) {
+        String violation = violation(scope, recording);
+        if (violation == null) {
+            return;
+        }
+        if (fail) {
+            throw new IllegalStateException(violation);
+        }
+        log.warn(violation);
+    }
+
+    /**
+     * 예외를 던져도 소용없는 곳(응답을 보낸 뒤)에서 쓰는 검사 - 초과하면 항상 경고 로그
+     */
+    public void warn(String scope, StatementRecording recording) {
+        String violation = violation(scope, recording);
+        if (violation != null) {
+            log.warn(violation);
+        }
+    }
+
+    private String violation(String scope, StatementRecording recording) {
+        if (budget <= 0 || recording.count() <= budget) {
+            return null;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append(scope).append(" executed ").append(recording.count())
+                .append(" statements (budget ").append(budget).append(")");
+        recording.repeated(repeatThreshold).forEach((sql, times) -> message
+                .append("\n  N+1 suspect ").append(suspectedAssociations(sql))
+                .append(" x").append(times).append(": ").append(sql));
+        return message.toString();
+    }
+
+    /**
+     * 반복된 SQL 의 from 테이블을 가리키는 연관관계들
+     */
+    public List<String> suspectedAssociations(String sql) {
+        Matcher matcher = FROM_TABLE.matcher(sql);
+        if (!matcher.find()) {
+            return List.of();
+        }
+        return associationsByTable.getOrDefault(matcher.group(1).toLowerCase(Locale.ROOT), List.of());
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 하이버네이트가 실행하는 SQL 을 현재 스레드에 묶인 StatementRecording 에 기록
+ *
+ * 하이버네이트 StatementInspector 로 등록되므로 JPQL, Querydsl, 지연 로딩, 벌크 연산 SQL 이 모두 잡힌다
+ * 묶인 기록이 없으면 아무것도 하지 않는다
+ */
+@Component
+public class StatementRecorder implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<StatementRecording> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        StatementRecording recording = CURRENT.get();
+        if (recording != null) {
+            recording.add(sql);
+        }
+        return sql;
+    }
+
+    public StatementRecording current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드에 recording 을 묶는다. 닫으면 이전 상태로 돌아간다
+     */
+    public Scope bind(StatementRecording recording) {
+        StatementRecording previous = CURRENT.get();
+        CURRENT.set(recording);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * 다른 스레드에서 실행되는 작업도 지금 스레드의 기록에 합친다
+     */
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        StatementRecording recording = CURRENT.get();
+        if (recording == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = bind(recording)) {
+                return task.get();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        StatementRecording recording = CURRENT.get();
+        if (recording == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = bind(recording)) {
+                return task.call();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
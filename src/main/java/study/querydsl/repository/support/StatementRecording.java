@@ -0,0 +1,45 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 하나의 HTTP 요청(또는 테스트 메서드)에서 실행된 SQL 목록
+ * 카운트 쿼리 스레드 등 여러 스레드에서 같이 기록할 수 있다
+ */
+public class StatementRecording {
+
+    private final ConcurrentLinkedQueue<String> statements = new ConcurrentLinkedQueue<>();
+
+    void add(String sql) {
+        statements.add(sql);
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> statements() {
+        return new ArrayList<>(statements);
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    /**
+     * 파라미터만 다르고 같은 SQL 이 threshold 번 이상 실행된 것 (N+1 의심) -> SQL, 실행 횟수
+     */
+    public Map<String, Long> repeated(int threshold) {
+        return statements.stream()
+                .collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+}
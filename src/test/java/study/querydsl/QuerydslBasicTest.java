@@ -24,12 +24,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.querydsl.dto.MemberDTO;
+import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.dto.QMemberDTO;
 import study.querydsl.dto.UserDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountQueryOptimizer;
+import study.querydsl.repository.support.DtoProjections;
 
 import java.util.List;
 
@@ -564,6 +567,41 @@ public class QuerydslBasicTest {
         }
     }
 
+    @Test
+    public void findDTOByDtoProjections(){
+        List<MemberDTO> bySetter = queryFactory
+                .select(DtoProjections.bean(MemberDTO.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(bySetter).containsExactly(new MemberDTO("member1", 10));
+
+        List<UserDTO> byAlias = queryFactory
+                .select(DtoProjections.bean(UserDTO.class,
+                        member.username.as("name"),
+                        member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(byAlias).containsExactly(new UserDTO("member1", 10));
+
+        List<MemberTeamDTO> byConstructor = queryFactory
+                .select(DtoProjections.constructor(MemberTeamDTO.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.eq("member4"))
+                .fetch();
+        assertThat(byConstructor).extracting("username", "age", "teamName")
+                .containsExactly(Assertions.tuple("member4", 40, "teamB"));
+    }
+
     @Test
     public void findUserDTOByField(){
 
@@ -758,4 +796,26 @@ public class QuerydslBasicTest {
 
 
 
+
+    @Test
+    public void countQueryOptimizer(){
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(20))
+                .orderBy(member.age.desc());
+
+        // where 에서 team 을 안 쓰면 left join, order by 제거
+        JPAQuery<?> count = CountQueryOptimizer.countQuery(queryFactory, content);
+        assertThat(count.getMetadata().getJoins()).hasSize(1);
+        assertThat(count.getMetadata().getOrderBy()).isEmpty();
+        assertThat(count.fetchCount()).isEqualTo(3);
+
+        // where 에서 team 을 쓰면 join 유지 (fetch 는 제거)
+        JPAQuery<?> teamCount = CountQueryOptimizer.countQuery(queryFactory, content.where(team.name.eq("teamB")));
+        assertThat(teamCount.getMetadata().getJoins()).hasSize(2);
+        assertThat(teamCount.getMetadata().getJoins().get(1).getFlags()).isEmpty();
+        assertThat(teamCount.fetchCount()).isEqualTo(2);
+    }
+
 }
@@ -0,0 +1,81 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberDataGeneratorTest {
+
+    @Test
+    public void uniformIsSequential() {
+        MemberDataGenerator generator = new MemberDataGenerator(DatasetProfile.uniform(300, 2));
+
+        for (int i = 0; i < 300; i++) {
+            MemberDataGenerator.Row row = generator.next(i);
+            assertThat(row.username()).isEqualTo("member" + i);
+            assertThat(row.age()).isEqualTo(i % 100);
+            assertThat(row.teamIndex()).isEqualTo(i % 2);
+        }
+    }
+
+    @Test
+    public void sameSeedSameData() {
+        DatasetProfile profile = DatasetProfile.uniform(1000, 10)
+                .withTeamSkew(1.0)
+                .withUsernameSkew(1.1)
+                .withAgeClusters(3);
+
+        assertThat(generate(profile)).isEqualTo(generate(profile));
+        assertThat(generate(profile)).isNotEqualTo(generate(profile.withSeed(7)));
+    }
+
+    @Test
+    public void zipfTeams() {
+        int members = 100_000;
+        DatasetProfile profile = DatasetProfile.uniform(members, 10).withTeamSkew(1.0);
+
+        int[] teamSizes = new int[10];
+        generate(profile).forEach(row -> teamSizes[row.teamIndex()]++);
+
+        // 1/H(10) ≈ 34%, 1/(2 H(10)) ≈ 17%, 1/(10 H(10)) ≈ 3.4%
+        assertThat(teamSizes[0]).isBetween(members * 32 / 100, members * 36 / 100);
+        assertThat(teamSizes[1]).isBetween(members * 16 / 100, members * 18 / 100);
+        assertThat(teamSizes[9]).isBetween(members * 3 / 100, members * 4 / 100);
+    }
+
+    @Test
+    public void skewedUsernamesAndClusteredAges() {
+        DatasetProfile profile = DatasetProfile.uniform(10_000, 2)
+                .withUsernameSkew(1.1)
+                .withAgeClusters(2)
+                .withAgeSpread(2);
+
+        List<MemberDataGenerator.Row> rows = generate(profile);
+        Set<String> usernames = new HashSet<>();
+        Set<Integer> ages = new HashSet<>();
+        rows.forEach(row -> {
+            usernames.add(row.username());
+            ages.add(row.age());
+        });
+
+        assertThat(rows.stream().filter(row -> row.username().equals("member0")).count()).isGreaterThan(1000);
+        assertThat(usernames.size()).isLessThan(rows.size() / 2);
+        // 중심 2개 ± 몇 살에만 몰린다
+        assertThat(ages.size()).isLessThan(40);
+        assertThat(ages).allMatch(age -> age >= 0 && age <= 99);
+    }
+
+    private static List<MemberDataGenerator.Row> generate(DatasetProfile profile) {
+        MemberDataGenerator generator = new MemberDataGenerator(profile);
+        List<MemberDataGenerator.Row> rows = new ArrayList<>(profile.memberCount());
+        for (int i = 0; i < profile.memberCount(); i++) {
+            rows.add(generator.next(i));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.repository.support.PageExecutor;
+import study.querydsl.repository.support.StatementRecorder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbBulkheadTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CountDownLatch release = new CountDownLatch(1);
+    DbBulkhead bulkhead;
+
+    @AfterEach
+    public void after() {
+        release.countDown();
+        if (bulkhead != null) {
+            bulkhead.destroy();
+        }
+    }
+
+    @Test
+    public void disabledRunsOnCallerThread() throws Exception {
+        bulkhead = bulkhead(false, 1, Duration.ofSeconds(1), 1);
+
+        CompletableFuture<String> result = bulkhead.submit(() -> Thread.currentThread().getName());
+
+        assertThat(result).isDone();
+        assertThat(result.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void runsOnRequestThreads() throws Exception {
+        bulkhead = bulkhead(true, 2, Duration.ofSeconds(1), 10);
+
+        String thread = bulkhead.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(thread).startsWith("member-request-");
+        assertThat(meterRegistry.get("querydsl.bulkhead.wait").tag("outcome", "acquired").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void fullQueueIsRejectedImmediately() throws Exception {
+        bulkhead = bulkhead(true, 1, Duration.ofSeconds(5), 1);
+        CompletableFuture<Integer> running = bulkhead.submit(this::block);
+        CompletableFuture<Integer> queued = bulkhead.submit(() -> 2);
+
+        // 작업 스레드 1 + 대기열 1 이 차 있으면 기다리지 않고 429
+        CompletableFuture<Integer> rejected = bulkhead.submit(() -> 3);
+        assertThat(rejected).isCompletedExceptionally();
+        assertTooManyRequests(rejected);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    public void maxWaitIsRejected() throws Exception {
+        bulkhead = bulkhead(true, 1, Duration.ofMillis(100), 10);
+        CompletableFuture<Integer> running = bulkhead.submit(this::block);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Integer> waiting = bulkhead.submit(() -> {
+            ran.set(true);
+            return 2;
+        });
+
+        // 앞 요청이 끝나지 않아도 max-wait 가 지나면 429, 대기열에서 빠진 작업은 실행되지 않는다
+        assertTooManyRequests(waiting);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(bulkhead.submit(() -> 3).get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(ran).isFalse();
+        assertThat(meterRegistry.get("querydsl.bulkhead.wait").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void expectedWaitOverBudgetIsRejectedAtSubmit() throws Exception {
+        bulkhead = bulkhead(true, 1, Duration.ofMillis(100), 10);
+        // 처리 시간 200ms 를 한 번 기록
+        bulkhead.submit(() -> sleep(200)).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Integer> running = bulkhead.submit(this::block);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // 앞 요청 하나를 기다리는 데만 200ms 예상 -> max-wait(100ms) 를 기다려 보지 않고 바로 429
+        CompletableFuture<Integer> waiting = bulkhead.submit(() -> {
+            ran.set(true);
+            return 2;
+        });
+        assertThat(waiting).isCompletedExceptionally();
+        assertTooManyRequests(waiting);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    public void defaultPermits() {
+        // 동시 카운트가 꺼져 있으면 커넥션 풀 전부
+        bulkhead(true, 0, Duration.ofSeconds(1), 10, false);
+        assertThat(meterRegistry.get("querydsl.bulkhead.available").gauge().value()).isEqualTo(10);
+
+        // 켜져 있으면 카운트 몫을 남긴다
+        assertThat(DbBulkhead.defaultPermits(10, 0)).isEqualTo(10);
+        assertThat(DbBulkhead.defaultPermits(10, PageExecutor.defaultCountPermits(10))).isEqualTo(5);
+        assertThat(DbBulkhead.defaultPermits(5, PageExecutor.defaultCountPermits(5))).isEqualTo(3);
+        assertThat(DbBulkhead.defaultPermits(1, PageExecutor.defaultCountPermits(1))).isEqualTo(1);
+    }
+
+    private DbBulkhead bulkhead(boolean enabled, int permits, Duration maxWait, int maxQueue) {
+        return bulkhead(enabled, permits, maxWait, maxQueue, false);
+    }
+
+    private DbBulkhead bulkhead(boolean enabled, int permits, Duration maxWait, int maxQueue, boolean concurrentCount) {
+        bulkhead = new DbBulkhead(meterRegistry, new StatementRecorder(), enabled, 10, permits, maxWait, maxQueue,
+                concurrentCount, 0);
+        return bulkhead;
+    }
+
+    private static int sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private int block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+
+    private static void assertTooManyRequests(CompletableFuture<?> result) {
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+    }
+}
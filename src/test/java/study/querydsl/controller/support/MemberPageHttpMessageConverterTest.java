@@ -0,0 +1,85 @@
+package study.querydsl.controller.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.querydsl.dto.MemberPage;
+import study.querydsl.dto.MemberTeamDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPageHttpMessageConverterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MemberPageHttpMessageConverter converter = new MemberPageHttpMessageConverter(objectMapper);
+
+    @Test
+    public void writesSameJsonAsJackson() throws Exception {
+        List<MemberTeamDTO> content = List.of(
+                new MemberTeamDTO(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDTO(2L, "member\"2\"", 20, null, null));
+        MemberPage page = MemberPage.of(new PageImpl<>(content, PageRequest.of(1, 2), 10));
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, output);
+
+        JsonNode written = objectMapper.readTree(output.getBodyAsString());
+        assertThat(written).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(page)));
+        assertThat(written.get("totalPages").asInt()).isEqualTo(5);
+        assertThat(written.get("content").get(1).get("teamId").isNull()).isTrue();
+        assertThat(output.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    public void doesNotCloseResponseStream() throws Exception {
+        MemberPage page = MemberPage.of(new PageImpl<>(
+                List.of(new MemberTeamDTO(1L, "member1", 10, 1L, "teamA")), PageRequest.of(0, 1), 1));
+        ClosedTrackingOutputStream body = new ClosedTrackingOutputStream();
+        HttpHeaders headers = new HttpHeaders();
+        HttpOutputMessage output = new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+
+        converter.write(page, MediaType.APPLICATION_JSON, output);
+
+        // 다른 필터/인터셉터가 이어서 쓸 수 있도록 응답 스트림은 열어 둔다
+        assertThat(body.closed).isFalse();
+        assertThat(objectMapper.readTree(body.toString(StandardCharsets.UTF_8)).get("totalElements").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    public void writeOnly() {
+        assertThat(converter.canWrite(MemberPage.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(MemberPage.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(MemberTeamDTO.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    static class ClosedTrackingOutputStream extends ByteArrayOutputStream {
+
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityWriteListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    // 하이버네이트 등록(register) 없이 구독/발행만 사용
+    EntityWriteListener writeListener = new EntityWriteListener(null);
+    AtomicLong queries = new AtomicLong();
+    LongSupplier counter = () -> {
+        queries.incrementAndGet();
+        return 42;
+    };
+
+    @AfterEach
+    public void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void hit() {
+        MemberCountCache cache = cache(true, Duration.ofMinutes(1));
+
+        assertThat(cache.get(condition("teamA"), counter)).isEqualTo(42);
+        assertThat(cache.get(condition("teamA"), counter)).isEqualTo(42);
+        // 빈 문자열 조건은 조건 없음과 같은 키
+        cache.get(condition(""), counter);
+        cache.get(condition(null), counter);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void ttl() throws InterruptedException {
+        MemberCountCache cache = cache(true, Duration.ofMillis(50));
+
+        cache.get(condition("teamA"), counter);
+        Thread.sleep(100);
+        cache.get(condition("teamA"), counter);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void readWriteTransactionBypassesCache() {
+        MemberCountCache cache = cache(true, Duration.ofMinutes(1));
+        cache.get(condition("teamA"), counter);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        cache.get(condition("teamA"), counter);
+        assertThat(queries).hasValue(2);
+
+        // 읽기 전용 트랜잭션은 캐시 사용
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        cache.get(condition("teamA"), counter);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void invalidatedByMemberAndTeamWrites() {
+        MemberCountCache cache = cache(true, Duration.ofMinutes(1));
+
+        cache.get(condition("teamA"), counter);
+        writeListener.publish(Member.class);
+        cache.get(condition("teamA"), counter);
+        writeListener.publish(Team.class);
+        cache.get(condition("teamA"), counter);
+        // 관계없는 타입은 무시
+        writeListener.publish(String.class);
+        cache.get(condition("teamA"), counter);
+
+        assertThat(queries).hasValue(3);
+    }
+
+    @Test
+    public void invalidatedWhileCounting() {
+        MemberCountCache cache = cache(true, Duration.ofMinutes(1));
+        AtomicLong rows = new AtomicLong(1);
+        LongSupplier countDuringWrite = () -> {
+            queries.incrementAndGet();
+            long count = rows.getAndIncrement();
+            if (count == 1) {
+                // 세는 도중에 다른 트랜잭션이 커밋 - 이 count 는 무효화 전 값일 수 있다
+                writeListener.publish(Member.class);
+            }
+            return count;
+        };
+
+        assertThat(cache.get(condition("teamA"), countDuringWrite)).isEqualTo(2);
+        assertThat(cache.get(condition("teamA"), countDuringWrite)).isEqualTo(2);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void disabled() {
+        MemberCountCache cache = cache(false, Duration.ofMinutes(1));
+
+        cache.get(condition("teamA"), counter);
+        cache.get(condition("teamA"), counter);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    private MemberCountCache cache(boolean enabled, Duration ttl) {
+        return new MemberCountCache(writeListener, new SimpleMeterRegistry(), enabled, ttl, 100);
+    }
+
+    private static MemberSearchCondition condition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -8,10 +8,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -122,21 +124,82 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void streamSearchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
 
+        Member member1 = new Member("member1", 10 , teamA);
+        Member member2 = new Member("member2", 20 , teamA);
 
+        Member member3 = new Member("member3", 30 , teamB);
+        Member member4 = new Member("member4", 40 , teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
 
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
 
+        List<MemberTeamDTO> result = new ArrayList<>();
+        long count = memberJpaRepository.streamSearch(condition, result::add);
 
+        assertThat(count).isEqualTo(2);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
 
+    @Test
+    public void streamSearchKeepsCallerPersistenceContext() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        // querydsl.stream.fetch-size(500) 보다 많이 읽도록
+        for (int i = 0; i < 600; i++) {
+            em.persist(new Member("bulk" + i, i % 100, teamA));
+        }
+        em.flush();
+
+        // 호출한 쪽 쓰기 트랜잭션의 플러시 안 된 변경과 관리 중인 엔티티가 그대로 남아야 한다
+        member1.setUsername("renamed");
+        long count = memberJpaRepository.streamSearch(new MemberSearchCondition(), dto -> {
+        });
+
+        assertThat(count).isEqualTo(601);
+        assertThat(em.contains(member1)).isTrue();
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, member1.getId()).getUsername()).isEqualTo("renamed");
+    }
 
+    @Test
+    public void searchColumnsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
 
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
 
-
-
-
-
-
-
-
-
-}
\ No newline at end of file
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        MemberTeamColumns columns = memberJpaRepository.searchColumns(condition);
+
+        assertThat(columns.getRowCount()).isEqualTo(2);
+        assertThat(columns.getAges()).containsExactlyInAnyOrder(20, 30);
+        assertThat(columns.getTeamNames()).containsExactly("teamA");
+        for (int i = 0; i < columns.getRowCount(); i++) {
+            String username = columns.getUsernames().get(columns.getUsernameCodes()[i]);
+            if (username.equals("member3")) {
+                assertThat(columns.getTeamIds()[i]).isEqualTo(MemberTeamColumns.NO_TEAM_ID);
+                assertThat(columns.getTeamNameCodes()[i]).isEqualTo(MemberTeamColumns.NO_TEAM_NAME);
+            } else {
+                assertThat(columns.getTeamIds()[i]).isEqualTo(teamA.getId());
+            }
+        }
+    }
+}
@@ -1,24 +1,46 @@
 package study.querydsl.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import study.querydsl.controller.support.HibernateStatisticsEndpoint;
+import study.querydsl.controller.support.HibernateStatisticsEndpoint.HibernateStatistics;
+import study.querydsl.controller.support.HibernateStatisticsEndpoint.QueryStats;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDTO;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
-
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.StatementBudget;
+import study.querydsl.support.ExplainPlan;
+import study.querydsl.support.StatementCountExtension;
+import study.querydsl.support.StatementCountExtension.Statements;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(StatementCountExtension.class)
 class MemberRepositoryTest {
     @Autowired
     EntityManager em;
@@ -26,6 +48,18 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    StatementBudget statementBudget;
+
+    @Autowired
+    HibernateStatisticsEndpoint hibernateStatisticsEndpoint;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     public void basicTest(){
         Member member = new Member("member1", 10);
@@ -102,6 +136,326 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
     }
 
+    @Test
+    public void statementCount(Statements statements) {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("member" + i, 10 * i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        statements.expect(1, () -> memberRepository.search(condition));
+        // 마지막 페이지가 아니면 카운트 쿼리까지 2번
+        statements.expect(2, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)));
+        // 첫 페이지에 전부 들어가면 카운트 쿼리 생략
+        statements.expect(1, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void nPlusOneSuspect() {
+        assertThat(statementBudget.suspectedAssociations("select t1_0.id,t1_0.name from team t1_0 where t1_0.id=?"))
+                .containsExactly("Member.team");
+        assertThat(statementBudget.suspectedAssociations("select m1_0.member_id from member m1_0 where m1_0.team_id=?"))
+                .containsExactly("Team.members");
+    }
+
+    @Test
+    public void searchFields(Statements statements) {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 팀명이 필요 없으면 team 조인 없이 FK 만 읽는다
+        Page<Map<String, Object>> result = statements.expect(1, () ->
+                memberRepository.searchFields(condition, EnumSet.of(MemberField.USERNAME, MemberField.TEAM_ID), PageRequest.of(0, 20)));
+        assertThat(statements.last()).doesNotContainIgnoringCase("join");
+        assertThat(result.getContent()).containsExactly(Map.of("username", "member1", "teamId", teamA.getId()));
+
+        condition.setTeamName("teamA");
+        statements.expect(1, () -> memberRepository.searchFields(condition, EnumSet.of(MemberField.USERNAME), PageRequest.of(0, 20)));
+        assertThat(statements.last()).containsIgnoringCase("join");
+    }
+
+    @Test
+    public void searchFieldsPage(Statements statements) {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("member" + i, 10 * i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 마지막 페이지가 아니면 카운트 쿼리까지 2번
+        Page<Map<String, Object>> first = statements.expect(2, () ->
+                memberRepository.searchFields(condition, EnumSet.of(MemberField.USERNAME), PageRequest.of(0, 2)));
+        assertThat(first.getContent()).extracting(row -> row.get("username")).containsExactly("member0", "member1");
+        assertThat(first.getTotalElements()).isEqualTo(3);
+
+        Page<Map<String, Object>> second = statements.expect(1, () ->
+                memberRepository.searchFields(condition, EnumSet.of(MemberField.USERNAME), PageRequest.of(1, 2)));
+        assertThat(second.getContent()).extracting(row -> row.get("username")).containsExactly("member2");
+        assertThat(second.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchUsesIndexes(Statements statements) {
+        // 빈 테이블은 어떤 계획이든 비용이 같으므로 인덱스 선택이 의미 있을 만큼 채우고 통계를 갱신
+        statements.excluding(() -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 2000; i++) {
+                em.persist(new Member("member" + (i % 500), i % 100, i % 2 == 0 ? teamA : teamB));
+            }
+            em.flush();
+            em.clear();
+            em.createNativeQuery("analyze").executeUpdate();
+        });
+
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member1");
+
+        MemberSearchCondition byTeamAndAge = new MemberSearchCondition();
+        byTeamAndAge.setTeamName("teamA");
+        byTeamAndAge.setAgeGoe(20);
+        byTeamAndAge.setAgeLoe(40);
+
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        byAge.setAgeLoe(40);
+
+        // 2페이지까지 가면 카운트 쿼리도 실행된다
+        PageRequest secondPage = PageRequest.of(1, 10);
+        for (MemberSearchCondition condition : List.of(byUsername, byTeamAndAge, byAge)) {
+            Map<String, Runnable> methods = new LinkedHashMap<>();
+            methods.put("search", () -> memberRepository.search(condition));
+            methods.put("searchPageSimple", () -> memberRepository.searchPageSimple(condition, secondPage));
+            methods.put("searchPageSimple2", () -> memberRepository.searchPageSimple2(condition, secondPage));
+            methods.put("searchPageComplex", () -> memberRepository.searchPageComplex(condition, secondPage));
+            methods.put("searchByCursor(ID)", () -> searchByCursorTwice(condition, MemberCursor.Sort.ID));
+            methods.put("searchByCursor(AGE)", () -> searchByCursorTwice(condition, MemberCursor.Sort.AGE));
+            methods.put("searchFields", () -> memberRepository.searchFields(
+                    condition, EnumSet.of(MemberField.MEMBER_ID, MemberField.TEAM_ID), secondPage));
+            methods.put("searchFields(teamName)", () -> memberRepository.searchFields(
+                    condition, EnumSet.allOf(MemberField.class), secondPage));
+            methods.put("searchPageByApplyPage", () -> memberTestRepository.searchPageByApplyPage(condition, secondPage));
+            methods.put("applyPagination", () -> memberTestRepository.applyPagination(condition, secondPage));
+            methods.put("applyPagination2", () -> memberTestRepository.applyPagination2(condition, secondPage));
+
+            methods.forEach((method, call) -> {
+                List<String> executed = statements.executedBy(call);
+                assertThat(executed).as("%s statements", method).isNotEmpty();
+                for (String sql : executed) {
+                    ExplainPlan.assertNoTableScan(em, sql, "member");
+                }
+            });
+        }
+    }
+
+    private void searchByCursorTwice(MemberSearchCondition condition, MemberCursor.Sort sort) {
+        // 첫 페이지와 커서 이후 페이지는 where 가 다르다
+        MemberCursorPage first = memberRepository.searchByCursor(condition, MemberCursor.first(sort), 3);
+        if (first.getNextCursor() != null) {
+            memberRepository.searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 3);
+        }
+    }
+
+    @Test
+    public void hibernateStatistics() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        hibernateStatisticsEndpoint.reset();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberRepository.search(condition);
+        memberRepository.search(condition);
+
+        HibernateStatistics statistics = hibernateStatisticsEndpoint.statistics();
+        assertThat(statistics.enabled()).isTrue();
+
+        QueryStats search = statistics.queries().stream()
+                .filter(query -> query.methods().contains("MemberRepositoryImpl.search"))
+                .findFirst().orElseThrow();
+        assertThat(search.executions()).isEqualTo(2);
+        assertThat(search.rows()).isEqualTo(4);
+
+        hibernateStatisticsEndpoint.reset();
+        assertThat(hibernateStatisticsEndpoint.statistics().queries()).isEmpty();
+    }
+
+    @Test
+    public void queryDeadline() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // 남은 시간이 있으면 그대로 실행
+        try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ofSeconds(5)).bind()) {
+            assertThat(memberRepository.search(condition)).hasSize(1);
+            assertThat(memberRepository.searchFields(condition, EnumSet.allOf(MemberField.class), PageRequest.of(0, 20))).hasSize(1);
+        }
+
+        // 마감 시간이 지났으면 미리 만든 JPQL(MemberSearchQueries), Querydsl 쿼리 모두 실행하지 않는다
+        try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ZERO).bind()) {
+            assertThatThrownBy(() -> memberRepository.search(condition))
+                    .isInstanceOf(QueryTimeoutException.class);
+            assertThatThrownBy(() -> memberRepository.searchFields(condition, EnumSet.allOf(MemberField.class), PageRequest.of(0, 20)))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+
+        // 취소된 요청도 마찬가지
+        QueryDeadline cancelled = QueryDeadline.after(Duration.ofSeconds(5));
+        cancelled.cancel();
+        try (QueryDeadline.Scope ignored = cancelled.bind()) {
+            assertThatThrownBy(() -> memberRepository.search(condition))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void queryDeadlineThroughResultCache() {
+        // 트랜잭션 밖이라 결과 캐시를 거친다. 캐시 미스는 요청의 마감 시간으로 읽는다
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("deadlineTeam");
+
+        try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ZERO).bind()) {
+            assertThatThrownBy(() -> memberRepository.search(condition))
+                    .isInstanceOf(QueryTimeoutException.class);
+            assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 20)))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+
+        QueryDeadline cancelled = QueryDeadline.after(Duration.ofSeconds(5));
+        cancelled.cancel();
+        try (QueryDeadline.Scope ignored = cancelled.bind()) {
+            assertThatThrownBy(() -> memberRepository.search(condition))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+
+        // 실패한 로드는 캐시에 남지 않으므로 시간이 있는 요청은 다시 읽는다
+        try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ofSeconds(5)).bind()) {
+            assertThat(memberRepository.search(condition)).isEmpty();
+        }
+    }
+
+    @Test
+    public void searchByCursor() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10 , teamA);
+        Member member2 = new Member("member2", 20 , teamA);
+
+        Member member3 = new Member("member3", 30 , teamB);
+        Member member4 = new Member("member4", 40 , teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberCursorPage first = memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.Sort.ID), 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberCursorPage second = memberRepository.searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+
+    @Test
+    public void queryMetricTags() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("member" + i, 10 * i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        long simple = queryCount("MemberRepositoryImpl.searchPageSimple", "fetchResults");
+        long complexFetch = queryCount("MemberRepositoryImpl.searchPageComplex", "fetch");
+        long complexCount = queryCount("MemberRepositoryImpl.searchPageComplex", "count");
+        long cursor = queryCount("MemberRepositoryImpl.searchByCursor", "fetch");
+
+        // 람다 안에서 만든 쿼리 (결과 캐시 로더)
+        memberRepository.searchPageSimple(condition, PageRequest.of(0, 3));
+        // 무시하는 헬퍼(MemberSearchQueries)를 거친 쿼리, 반복 호출은 캐시된 태그 사용
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+        memberRepository.searchPageComplex(condition, PageRequest.of(1, 3));
+        // 직접 만든 쿼리
+        memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.Sort.ID), 3);
+
+        assertThat(queryCount("MemberRepositoryImpl.searchPageSimple", "fetchResults")).isEqualTo(simple + 1);
+        assertThat(queryCount("MemberRepositoryImpl.searchPageComplex", "fetch")).isEqualTo(complexFetch + 2);
+        assertThat(queryCount("MemberRepositoryImpl.searchPageComplex", "count")).isEqualTo(complexCount + 1);
+        assertThat(queryCount("MemberRepositoryImpl.searchByCursor", "fetch")).isEqualTo(cursor + 1);
+        assertThat(meterRegistry.find("querydsl.query").timers())
+                .extracting(timer -> timer.getId().getTag("method"))
+                .noneMatch(method -> method.startsWith("MemberSearchQueries.") || method.contains("lambda$"));
+    }
+
+    private long queryCount(String method, String operation) {
+        Timer timer = meterRegistry.find("querydsl.query").tag("method", method).tag("operation", operation).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    public void bulkAddAge() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10 , teamA);
+        Member member2 = new Member("member2", 20 , teamA);
+
+        Member member3 = new Member("member3", 30 , teamB);
+        Member member4 = new Member("member4", 40 , teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        MemberBulkResult result = memberRepository.bulkAddAge(condition, 1);
+
+        assertThat(result.getTotalRows()).isEqualTo(2);
+        // 변경된 회원만 영속성 컨텍스트에서 내려가고 나머지는 그대로
+        assertThat(em.contains(member3)).isFalse();
+        assertThat(em.contains(member4)).isFalse();
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.find(Member.class, member3.getId()).getAge()).isEqualTo(31);
+    }
+
 
     @Test
     public void querydslPredicateExecutorTest(){
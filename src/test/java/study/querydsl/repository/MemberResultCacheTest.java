@@ -0,0 +1,261 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.EntityWriteListener;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.support.NoOpTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class MemberResultCacheTest {
+
+    // 하이버네이트 등록(register) 없이 구독/발행만 사용
+    EntityWriteListener writeListener = new EntityWriteListener(null);
+    AtomicInteger queries = new AtomicInteger();
+    Supplier<List<MemberTeamDTO>> loader = () -> {
+        int version = queries.incrementAndGet();
+        return new ArrayList<>(List.of(new MemberTeamDTO(1L, "member" + version, 10, 1L, "teamA")));
+    };
+
+    ExecutorService requests = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void clear() {
+        requests.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void hit() {
+        MemberResultCache cache = cache(true);
+
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        // 다른 operation, 다른 페이지는 다른 키
+        cache.get("searchPageComplex", condition("teamA"), Pageable.unpaged(), loader);
+        cache.get("search", condition("teamA"), PageRequest.of(1, 10), loader);
+
+        assertThat(queries).hasValue(3);
+    }
+
+    @Test
+    public void cachedResultIsNotShared() {
+        MemberResultCache cache = cache(true);
+
+        List<MemberTeamDTO> first = cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        first.get(0).setUsername("changed");
+        assertThatThrownBy(() -> first.add(new MemberTeamDTO(2L, "member2", 20, null, null)))
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        List<MemberTeamDTO> second = cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(second).extracting(MemberTeamDTO::getUsername).containsExactly("member1");
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    public void cachedPage() {
+        MemberResultCache cache = cache(true);
+        Supplier<Page<MemberTeamDTO>> pageLoader = () -> new PageImpl<>(loader.get(), PageRequest.of(0, 10), 1);
+
+        Page<MemberTeamDTO> first = cache.get("searchPageComplex", condition("teamA"), PageRequest.of(0, 10), pageLoader);
+        first.getContent().get(0).setUsername("changed");
+        Page<MemberTeamDTO> second = cache.get("searchPageComplex", condition("teamA"), PageRequest.of(0, 10), pageLoader);
+
+        assertThat(second.getContent()).extracting(MemberTeamDTO::getUsername).containsExactly("member1");
+        assertThat(second.getTotalElements()).isEqualTo(1);
+        assertThat(second.getPageable()).isEqualTo(PageRequest.of(0, 10));
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    public void invalidatedByWrite() {
+        MemberResultCache cache = cache(true);
+
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        writeListener.publish(Member.class);
+        List<MemberTeamDTO> result = cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+
+        assertThat(result).extracting(MemberTeamDTO::getUsername).containsExactly("member2");
+    }
+
+    @Test
+    public void loadStartedBeforeInvalidationIsDropped() throws Exception {
+        MemberResultCache cache = cache(true);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // 이전 값을 읽는 중에 쓰기가 커밋되어 무효화
+        CompletableFuture<List<MemberTeamDTO>> stale = CompletableFuture.supplyAsync(() ->
+                cache.get("search", condition("teamA"), Pageable.unpaged(), () -> {
+                    List<MemberTeamDTO> rows = loader.get();
+                    loading.countDown();
+                    await(invalidated);
+                    return rows;
+                }), requests);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidateAll();
+        invalidated.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+
+        // 무효화 전에 시작한 로드 결과는 캐시에 남지 않는다
+        List<MemberTeamDTO> result = cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(result).extracting(MemberTeamDTO::getUsername).containsExactly("member2");
+    }
+
+    @Test
+    public void cancelledLoaderDoesNotFailWaiters() throws Exception {
+        MemberResultCache cache = cache(true);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryDeadline first = QueryDeadline.after(Duration.ofSeconds(5));
+        AtomicReference<QueryDeadline> loadDeadline = new AtomicReference<>();
+
+        // 처음 요청이 자기 마감 시간으로 읽는 중에
+        CompletableFuture<List<MemberTeamDTO>> loader1 = CompletableFuture.supplyAsync(() -> {
+            try (QueryDeadline.Scope ignored = first.bind()) {
+                return cache.get("search", condition("teamA"), Pageable.unpaged(), () -> {
+                    loadDeadline.set(QueryDeadline.current());
+                    loading.countDown();
+                    await(release);
+                    // 취소된 요청의 다음 쿼리는 QueryDeadline.applyTo 가 막는다
+                    if (QueryDeadline.current().isCancelled()) {
+                        throw new QueryTimeoutException("request was cancelled");
+                    }
+                    return loader.get();
+                });
+            }
+        }, requests);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loadDeadline.get()).isSameAs(first);
+
+        // 같은 키를 찾는 두 번째 요청은 기다린다
+        CompletableFuture<List<MemberTeamDTO>> waiter = CompletableFuture.supplyAsync(() -> {
+            try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ofSeconds(5)).bind()) {
+                return cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+            }
+        }, requests);
+
+        // 처음 요청이 취소되면 그 로드는 실패하고, 기다리던 요청이 자기 마감 시간으로 다시 읽는다
+        first.cancel();
+        release.countDown();
+        assertThat(catchThrowable(() -> loader1.get(5, TimeUnit.SECONDS)))
+                .hasCauseInstanceOf(QueryTimeoutException.class);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).extracting(MemberTeamDTO::getUsername).containsExactly("member1");
+        assertThat(queries).hasValue(1);
+
+        // 다시 읽은 결과는 캐시에 남는다
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    public void waiterUsesItsOwnDeadline() throws Exception {
+        MemberResultCache cache = cache(true);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<MemberTeamDTO>> loader1 = CompletableFuture.supplyAsync(() ->
+                cache.get("search", condition("teamA"), Pageable.unpaged(), () -> {
+                    loading.countDown();
+                    await(release);
+                    return loader.get();
+                }), requests);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 남은 시간이 짧은 요청은 로드가 끝날 때까지 기다리지 않는다
+        try (QueryDeadline.Scope ignored = QueryDeadline.after(Duration.ofMillis(100)).bind()) {
+            assertThatThrownBy(() -> cache.get("search", condition("teamA"), Pageable.unpaged(), loader))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+
+        // 취소된 요청도 바로 그만 기다린다
+        QueryDeadline cancelled = QueryDeadline.after(Duration.ofSeconds(5));
+        CompletableFuture<Throwable> cancelledWaiter = CompletableFuture.supplyAsync(() -> {
+            try (QueryDeadline.Scope ignored = cancelled.bind()) {
+                return catchThrowable(() -> cache.get("search", condition("teamA"), Pageable.unpaged(), loader));
+            }
+        }, requests);
+        cancelled.cancel();
+        assertThat(cancelledWaiter.get(5, TimeUnit.SECONDS)).isInstanceOf(QueryTimeoutException.class);
+
+        // 로드는 그대로 끝나서 캐시에 남는다
+        release.countDown();
+        assertThat(loader1.get(5, TimeUnit.SECONDS)).hasSize(1);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    public void readWriteTransactionBypassesCache() {
+        MemberResultCache cache = cache(true);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(queries).hasValue(2);
+
+        // 읽기 전용 트랜잭션은 캐시 사용
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void disabled() {
+        MemberResultCache cache = cache(false);
+
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+        cache.get("search", condition("teamA"), Pageable.unpaged(), loader);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    private MemberResultCache cache(boolean enabled) {
+        return new MemberResultCache(writeListener, new SimpleMeterRegistry(), new NoOpTransactionManager(),
+                enabled, Duration.ofMinutes(1), 1024 * 1024);
+    }
+
+    private static MemberSearchCondition condition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDTO;
+import study.querydsl.dto.QMemberTeamDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberSearchQueries.searchPredicates;
+
+/**
+ * 미리 만든 16가지 JPQL 이 Querydsl 동적 쿼리와 같은 결과를 내는지 (컨텐츠, 카운트, 페이징)
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberSearchQueries searchQueries;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            // 팀 없는 회원도 섞어서 left join / inner join 차이가 드러나게
+            Team memberTeam = i % 3 == 0 ? teamA : i % 3 == 1 ? teamB : null;
+            em.persist(new Member("member" + (i % 7), i * 3, memberTeam));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void everyShapeMatchesQuerydsl() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = condition(shape);
+
+            assertThat(searchQueries.fetch(condition))
+                    .as("content shape %d", shape)
+                    .containsExactlyInAnyOrderElementsOf(querydslContent(condition));
+            assertThat(searchQueries.fetchCount(condition))
+                    .as("count shape %d", shape)
+                    .isEqualTo(querydslCount(condition));
+        }
+    }
+
+    @Test
+    public void pagedShapesMatchQuerydsl() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = condition(shape);
+            List<MemberTeamDTO> all = querydslContent(condition);
+
+            assertThat(searchQueries.fetch(condition, 0, 100))
+                    .as("paged shape %d", shape)
+                    .containsExactlyInAnyOrderElementsOf(all);
+            assertThat(searchQueries.fetch(condition, 2, 3))
+                    .as("page size shape %d", shape)
+                    .hasSize(Math.max(0, Math.min(3, all.size() - 2)))
+                    .isSubsetOf(all);
+        }
+    }
+
+    /**
+     * shape 비트마다 조건 하나씩 (username, teamName, ageGoe, ageLoe)
+     */
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) {
+            condition.setUsername("member2");
+        }
+        if ((shape & 2) != 0) {
+            condition.setTeamName("teamB");
+        }
+        if ((shape & 4) != 0) {
+            condition.setAgeGoe(10);
+        }
+        if ((shape & 8) != 0) {
+            condition.setAgeLoe(45);
+        }
+        return condition;
+    }
+
+    private List<MemberTeamDTO> querydslContent(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDTO(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .fetch();
+    }
+
+    private long querydslCount(MemberSearchCondition condition) {
+        Long count = queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicates(condition))
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+}
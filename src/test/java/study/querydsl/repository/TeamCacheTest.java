@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시/쿼리 캐시는 커밋된 데이터만 올라가므로 트랜잭션 롤백 대신 직접 지운다
+ */
+@SpringBootTest
+class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transaction;
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        transaction.executeWithoutResult(status -> {
+            Team team = new Team("cachedTeam");
+            em.persist(team);
+            Member member = new Member("cachedMember", 10, team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transaction.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void memberTeamFromSecondLevelCache() {
+        for (int i = 0; i < 3; i++) {
+            teamNameOfMember();
+        }
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        // 새 영속성 컨텍스트마다 member.getTeam() 지연 로딩을 캐시에서 해결
+        assertThat(teamNameOfMember()).isEqualTo("cachedTeam");
+        assertThat(teamNameOfMember()).isEqualTo("cachedTeam");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(hits + 2);
+    }
+
+    @Test
+    public void findByNameFromQueryCache() {
+        for (int i = 0; i < 3; i++) {
+            findByName("cachedTeam");
+        }
+        long queryHits = statistics.getQueryCacheHitCount();
+
+        assertThat(findByName("cachedTeam")).isEqualTo(teamId);
+        assertThat(findByName("cachedTeam")).isEqualTo(teamId);
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThanOrEqualTo(queryHits + 2);
+    }
+
+    @Test
+    public void teamWriteEvictsCachedResults() {
+        findByName("cachedTeam");
+        teamNameOfMember();
+
+        transaction.executeWithoutResult(status -> em.find(Team.class, teamId).setName("renamedTeam"));
+
+        // 쿼리 캐시는 team 테이블 변경으로 무효화, 2차 캐시는 새 이름으로 갱신
+        assertThat(findByName("cachedTeam")).isNull();
+        assertThat(findByName("renamedTeam")).isEqualTo(teamId);
+        assertThat(teamNameOfMember()).isEqualTo("renamedTeam");
+    }
+
+    private String teamNameOfMember() {
+        return transaction.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+    }
+
+    private Long findByName(String name) {
+        return transaction.execute(status -> teamRepository.findByName(name).map(Team::getId).orElse(null));
+    }
+}
@@ -0,0 +1,228 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatsDTO;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 증분 반영은 커밋 후에만 일어나므로 트랜잭션 롤백 대신 커밋하고 직접 지운다
+ * (롤백되는 데이터로 rebuild 하면 싱글톤 집계에 남는다)
+ */
+@SpringBootTest
+class TeamStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamStatistics teamStatistics;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transaction;
+    ExecutorService executor;
+    Long teamAId;
+    Long teamBId;
+    List<Long> memberIds;
+
+    @BeforeEach
+    public void before() {
+        transaction = new TransactionTemplate(transactionManager);
+        executor = Executors.newCachedThreadPool();
+        memberIds = new ArrayList<>();
+        transaction.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+        transaction.executeWithoutResult(status -> {
+            for (Long memberId : memberIds) {
+                Member found = em.find(Member.class, memberId);
+                if (found != null) {
+                    em.remove(found);
+                }
+            }
+            em.remove(em.find(Team.class, teamAId));
+            em.remove(em.find(Team.class, teamBId));
+        });
+        teamStatistics.rebuild();
+    }
+
+    @Test
+    public void insert() {
+        persistMember("member1", 10, teamAId);
+        persistMember("member2", 20, teamAId);
+        persistMember("member3", 30, teamBId);
+
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getTeamName()).isEqualTo("statsTeamA");
+        assertThat(statsA.getCount()).isEqualTo(2);
+        assertThat(statsA.getSum()).isEqualTo(30);
+        assertThat(statsA.getAvg()).isEqualTo(15);
+        assertThat(statsA.getMax()).isEqualTo(20);
+        assertThat(statsA.getMin()).isEqualTo(10);
+        assertThat(stats(teamBId).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void insertRolledBack() {
+        persistMember("member1", 10, teamAId);
+
+        transaction.executeWithoutResult(status -> {
+            em.persist(new Member("member2", 20, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(stats(teamAId).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void moveTeam() {
+        Long memberId = persistMember("member1", 10, teamAId);
+        persistMember("member2", 20, teamAId);
+
+        transaction.executeWithoutResult(status ->
+                em.find(Member.class, memberId).setTeam(em.find(Team.class, teamBId)));
+
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getCount()).isEqualTo(1);
+        assertThat(statsA.getMin()).isEqualTo(20);
+        TeamStatsDTO statsB = stats(teamBId);
+        assertThat(statsB.getTeamName()).isEqualTo("statsTeamB");
+        assertThat(statsB.getCount()).isEqualTo(1);
+        assertThat(statsB.getSum()).isEqualTo(10);
+    }
+
+    @Test
+    public void changeAge() {
+        Long memberId = persistMember("member1", 10, teamAId);
+        persistMember("member2", 20, teamAId);
+
+        transaction.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(40));
+
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getCount()).isEqualTo(2);
+        assertThat(statsA.getSum()).isEqualTo(60);
+        assertThat(statsA.getMax()).isEqualTo(40);
+        assertThat(statsA.getMin()).isEqualTo(20);
+    }
+
+    @Test
+    public void delete() {
+        Long memberId = persistMember("member1", 10, teamAId);
+        persistMember("member2", 20, teamAId);
+
+        transaction.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getCount()).isEqualTo(1);
+        assertThat(statsA.getSum()).isEqualTo(20);
+        assertThat(statsA.getMin()).isEqualTo(20);
+    }
+
+    @Test
+    public void bulkUpdateRebuilds() {
+        persistMember("member1", 10, teamAId);
+        persistMember("member2", 20, teamAId);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("statsTeamA");
+        memberRepository.bulkAddAge(condition, 5);
+
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getCount()).isEqualTo(2);
+        assertThat(statsA.getSum()).isEqualTo(40);
+        assertThat(statsA.getMax()).isEqualTo(25);
+        assertThat(statsA.getMin()).isEqualTo(15);
+    }
+
+    @Test
+    public void rebuildBetweenCommitAndApplyDoesNotDoubleCount() {
+        persistMember("member1", 10, teamAId);
+
+        transaction.executeWithoutResult(status -> {
+            Member member = new Member("member2", 20, em.find(Team.class, teamAId));
+            em.persist(member);
+            memberIds.add(member.getId());
+            em.flush();
+            // 커밋은 끝났고 증분은 아직 반영 전: 이 때 다른 스레드의 rebuild 는 member2 를 이미 읽는다
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(teamStatistics::rebuild, executor).join();
+                }
+            });
+        });
+
+        // 증분은 버리고 백그라운드에서 다시 계산
+        TeamStatsDTO statsA = stats(teamAId);
+        assertThat(statsA.getCount()).isEqualTo(2);
+        assertThat(statsA.getSum()).isEqualTo(30);
+    }
+
+    private Long persistMember(String username, int age, Long teamId) {
+        Long memberId = transaction.execute(status -> {
+            Member member = new Member(username, age, em.find(Team.class, teamId));
+            em.persist(member);
+            return member.getId();
+        });
+        memberIds.add(memberId);
+        return memberId;
+    }
+
+    /**
+     * 증분을 반영하지 못한 변경은 백그라운드 rebuild 가 끝나야 보인다
+     */
+    private TeamStatsDTO stats(Long teamId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (teamStatistics.isStale() && System.nanoTime() < deadline) {
+            sleep(10);
+        }
+        assertThat(teamStatistics.isStale()).isFalse();
+        return teamStatistics.findAll().stream()
+                .filter(stats -> stats.getTeamId().equals(teamId))
+                .findFirst().orElseThrow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
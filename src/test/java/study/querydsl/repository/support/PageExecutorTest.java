@@ -0,0 +1,173 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.support.NoOpTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageExecutorTest {
+
+    EntityManager em = mock(EntityManager.class);
+    Session session = mock(Session.class);
+    NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+    ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+    PageExecutor pageExecutor;
+
+    @AfterEach
+    public void after() {
+        if (pageExecutor != null) {
+            pageExecutor.destroy();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void countRunsConcurrently() {
+        pageExecutor = pageExecutor(true, 2);
+        AtomicReference<String> countThread = new AtomicReference<>();
+
+        Page<String> page = pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2),
+                recordThread(countThread, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(countThread.get()).startsWith("page-count-");
+    }
+
+    @Test
+    public void disabledRunsSequentially() {
+        pageExecutor = pageExecutor(false, 2);
+        AtomicReference<String> countThread = new AtomicReference<>();
+
+        pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(countThread, 10));
+
+        assertThat(countThread.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void readWriteTransactionRunsSequentially() {
+        pageExecutor = pageExecutor(true, 2);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        AtomicReference<String> countThread = new AtomicReference<>();
+
+        pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(countThread, 10));
+
+        assertThat(countThread.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void readYourWritesRunsSequentially() {
+        pageExecutor = pageExecutor(true, 2);
+        // 방금 쓴 값이 보이도록 카운트도 같은 스레드(primary)에서
+        AtomicReference<String> countThread = new AtomicReference<>();
+        try (ReadYourWrites.Scope ignored = new ReadYourWrites.Client(0, writtenAt -> { }).bind()) {
+            readYourWrites.committed();
+
+            pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(countThread, 10));
+        }
+
+        assertThat(countThread.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void noFreeCountPermitRunsSequentially() throws Exception {
+        pageExecutor = pageExecutor(true, 1);
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch releaseCount = new CountDownLatch(1);
+
+        // 첫 요청의 카운트가 유일한 자리를 잡고 있는 동안
+        CompletableFuture<Page<String>> first = CompletableFuture.supplyAsync(() ->
+                pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), () -> {
+                    countStarted.countDown();
+                    await(releaseCount);
+                    return 10;
+                }));
+        assertThat(countStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 두 번째 요청은 커넥션을 더 기다리지 않고 자기 스레드에서 카운트
+        AtomicReference<String> countThread = new AtomicReference<>();
+        pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(countThread, 10));
+        assertThat(countThread.get()).isEqualTo(Thread.currentThread().getName());
+
+        releaseCount.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    public void unneededCountIsCancelled() {
+        pageExecutor = pageExecutor(true, 1);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        CountDownLatch countStarted = new CountDownLatch(1);
+
+        // 첫 페이지에 전부 들어가면 카운트가 필요 없다 -> 실행 중인 카운트 취소
+        Page<String> page = pageExecutor.getPage(() -> {
+            await(countStarted);
+            return List.of("a");
+        }, PageRequest.of(0, 2), () -> {
+            countStarted.countDown();
+            await(new CountDownLatch(1)); // 인터럽트될 때까지
+            return 10;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        verify(session, timeout(5000)).cancelQuery();
+
+        // 취소된 카운트가 자리를 돌려줬으면 다음 카운트도 동시 실행
+        AtomicReference<String> countThread = new AtomicReference<>();
+        waitForPermit();
+        pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(countThread, 10));
+        assertThat(countThread.get()).startsWith("page-count-");
+    }
+
+    private PageExecutor pageExecutor(boolean concurrentCount, int countPermits) {
+        return new PageExecutor(em, transactionManager, new StatementRecorder(), readYourWrites, concurrentCount, 10, countPermits);
+    }
+
+    private void waitForPermit() {
+        // 취소된 카운트 스레드가 finally 까지 가는 시간
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < until) {
+            AtomicReference<String> probe = new AtomicReference<>();
+            pageExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2), recordThread(probe, 10));
+            if (probe.get().startsWith("page-count-")) {
+                return;
+            }
+        }
+    }
+
+    private static LongSupplier recordThread(AtomicReference<String> thread, long count) {
+        return () -> {
+            thread.set(Thread.currentThread().getName());
+            return count;
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryMetricsTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void histogramIsOptIn() {
+        QueryMetrics metrics = new QueryMetrics(meterRegistry, false);
+        metrics.time("MemberRepositoryImpl.search", "fetch", () -> 1);
+        metrics.recordRows("MemberRepositoryImpl.search", 10);
+
+        Timer timer = meterRegistry.get("querydsl.query").tag("method", "MemberRepositoryImpl.search").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.takeSnapshot().histogramCounts()).isEmpty();
+        assertThat(meterRegistry.get("querydsl.query.rows").summary().takeSnapshot().histogramCounts()).isEmpty();
+    }
+
+    @Test
+    public void histogramEnabled() {
+        QueryMetrics metrics = new QueryMetrics(meterRegistry, true);
+        metrics.time("MemberRepositoryImpl.search", "fetch", () -> 1);
+
+        Timer timer = meterRegistry.get("querydsl.query").tag("method", "MemberRepositoryImpl.search").timer();
+        assertThat(timer.takeSnapshot().histogramCounts()).isNotEmpty();
+    }
+
+    @Test
+    public void executingMethodBoundWhileTiming() {
+        QueryMetrics metrics = new QueryMetrics(meterRegistry, false);
+        assertThat(metrics.executingMethod()).isNull();
+
+        String executing = metrics.time("MemberRepositoryImpl.search", "fetch", metrics::executingMethod);
+        assertThat(executing).isEqualTo("MemberRepositoryImpl.search");
+        assertThat(metrics.executingMethod()).isNull();
+    }
+
+    @Test
+    public void supportPackageIsNotACaller() {
+        // 리포지토리 메서드를 거치지 않은 호출 (support 패키지, 테스트 러너)
+        QueryMetrics metrics = new QueryMetrics(meterRegistry, false);
+        assertThat(metrics.callerMethod()).isEqualTo("unknown");
+        Runnable lambda = () -> assertThat(metrics.callerMethod()).isEqualTo("unknown");
+        lambda.run();
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.support.ReplicaRoutingDataSource.Route;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMillis(200));
+    ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+            new SimpleDriverDataSource(), new SimpleDriverDataSource(), readYourWrites);
+
+    @AfterEach
+    public void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void routing() {
+        // 트랜잭션 밖
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+
+        begin(true);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+        commit();
+
+        begin(false);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+    }
+
+    @Test
+    public void readYourWrites() throws InterruptedException {
+        ReadYourWrites.Client client = new ReadYourWrites.Client(0, writtenAt -> { });
+        try (ReadYourWrites.Scope ignored = client.bind()) {
+            begin(false);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+            commit();
+
+            // 쓰기 직후 읽기는 primary
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+            assertThat(readYourWrites.readsPinnedToPrimary()).isTrue();
+            commit();
+
+            Thread.sleep(300);
+
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+            commit();
+        }
+    }
+
+    @Test
+    public void readYourWritesPerClient() throws Exception {
+        AtomicLong cookie = new AtomicLong();
+        ReadYourWrites.Client writer = new ReadYourWrites.Client(0, cookie::set);
+
+        // 쓰기는 다른 스레드(DbBulkhead 작업 스레드)에서 커밋
+        try (ReadYourWrites.Scope ignored = writer.bind()) {
+            CompletableFuture.supplyAsync(ReadYourWrites.wrap(() -> {
+                begin(false);
+                assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+                commit();
+                return null;
+            })).get(5, TimeUnit.SECONDS);
+
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+            commit();
+        }
+        // 응답 쿠키로 돌려줄 커밋 시각
+        assertThat(cookie.get()).isEqualTo(writer.lastWriteMillis()).isPositive();
+
+        // 쓰지 않은 클라이언트는 replica
+        try (ReadYourWrites.Scope ignored = new ReadYourWrites.Client(0, writtenAt -> { }).bind()) {
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+            commit();
+        }
+
+        // 쿠키를 들고 다른 노드로 온 다음 요청도 primary
+        try (ReadYourWrites.Scope ignored = new ReadYourWrites.Client(cookie.get(), writtenAt -> { }).bind()) {
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+            commit();
+        }
+    }
+
+    @Test
+    public void writeWithoutClientDoesNotPin() {
+        begin(false);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+        commit();
+
+        begin(true);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+        commit();
+    }
+
+    @Test
+    public void rolledBackWriteDoesNotPin() {
+        try (ReadYourWrites.Scope ignored = new ReadYourWrites.Client(0, writtenAt -> { }).bind()) {
+            begin(false);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.PRIMARY);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            TransactionSynchronizationManager.clear();
+
+            begin(true);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Route.REPLICA);
+            commit();
+        }
+    }
+
+    private void begin(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clear();
+    }
+}
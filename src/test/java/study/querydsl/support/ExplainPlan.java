@@ -0,0 +1,55 @@
+package study.querydsl.support;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 EXPLAIN 으로 하이버네이트가 만든 SQL 의 실행 계획을 확인
+ * <pre>
+ * ExplainPlan.assertNoTableScan(em, statements.last());
+ * </pre>
+ */
+public final class ExplainPlan {
+
+    private ExplainPlan() {
+    }
+
+    public static String explain(EntityManager em, String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                // 실행 계획만 보므로 값은 상관없다 (문자열 "1" 은 숫자, 문자 컬럼 모두로 변환된다)
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setString(i, "1");
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    StringBuilder result = new StringBuilder();
+                    while (plan.next()) {
+                        result.append(plan.getString(1)).append('\n');
+                    }
+                    return result.toString();
+                }
+            }
+        });
+    }
+
+    public static void assertNoTableScan(EntityManager em, String sql) {
+        assertThat(explain(em, sql))
+                .as("plan of %s", sql)
+                .doesNotContain(".tableScan");
+    }
+
+    /**
+     * table 만 전체 스캔하지 않는지 (작은 코드성 테이블을 스캔하고 조인하는 계획은 허용)
+     */
+    public static void assertNoTableScan(EntityManager em, String sql, String table) {
+        assertThat(explain(em, sql))
+                .as("plan of %s", sql)
+                .doesNotContainIgnoringCase("." + table + ".tableScan");
+    }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import study.querydsl.repository.support.StatementBudget;
+import study.querydsl.repository.support.StatementRecorder;
+import study.querydsl.repository.support.StatementRecording;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 메서드마다 실행된 SQL 을 센다
+ *
+ * 테스트 메서드에 Statements 파라미터를 받으면 리포지토리 메서드별로 SQL 수를 검증할 수 있다
+ * <pre>
+ * statements.expect(1, () -> memberRepository.search(condition));
+ * </pre>
+ * 테스트가 끝나면 querydsl.statements 설정(StatementBudget)으로 전체 SQL 수도 검사한다
+ * 테스트 데이터 준비 SQL 은 statements.excluding(() -> ...) 로 빼고 센다
+ */
+public class StatementCountExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        StatementRecorder recorder = applicationContext(context).getBean(StatementRecorder.class);
+        StatementRecording recording = new StatementRecording();
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.put(StatementRecording.class, recording);
+        store.put(StatementRecorder.Scope.class, recorder.bind(recording));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.remove(StatementRecorder.Scope.class, StatementRecorder.Scope.class).close();
+        StatementRecording recording = store.remove(StatementRecording.class, StatementRecording.class);
+        applicationContext(context).getBean(StatementBudget.class)
+                .check("test " + context.getDisplayName(), recording);
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == Statements.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+        StatementRecorder recorder = applicationContext(extensionContext).getBean(StatementRecorder.class);
+        return new Statements(recorder, () -> store.get(StatementRecording.class, StatementRecording.class));
+    }
+
+    private static ApplicationContext applicationContext(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context);
+    }
+
+    public static class Statements {
+
+        private final StatementRecorder recorder;
+        private final Supplier<StatementRecording> recording;
+
+        Statements(StatementRecorder recorder, Supplier<StatementRecording> recording) {
+            this.recorder = recorder;
+            this.recording = recording;
+        }
+
+        /**
+         * setup 이 실행한 SQL 은 테스트의 SQL 수(예산)에 넣지 않는다 (테스트 데이터 준비용)
+         */
+        public void excluding(Runnable setup) {
+            try (StatementRecorder.Scope ignored = recorder.bind(new StatementRecording())) {
+                setup.run();
+            }
+        }
+
+        public int count() {
+            return recording.get().count();
+        }
+
+        /**
+         * 마지막으로 실행된 SQL
+         */
+        public String last() {
+            List<String> statements = recording.get().statements();
+            return statements.isEmpty() ? null : statements.get(statements.size() - 1);
+        }
+
+        /**
+         * action 이 실행한 SQL 들 (실행 계획 확인용 - 테스트의 SQL 수에는 넣지 않는다)
+         */
+        public List<String> executedBy(Runnable action) {
+            StatementRecording executed = new StatementRecording();
+            try (StatementRecorder.Scope ignored = recorder.bind(executed)) {
+                action.run();
+            }
+            return executed.statements();
+        }
+
+        /**
+         * action 이 실행한 SQL 수가 정확히 expected 인지 검증
+         */
+        public <T> T expect(int expected, Supplier<T> action) {
+            int before = count();
+            T result = action.get();
+            assertThat(recording.get().statements().subList(before, count()))
+                    .as("executed statements")
+                    .hasSize(expected);
+            return result;
+        }
+    }
+}